@@ -0,0 +1,3 @@
+#!/bin/bash
+# Lets the replica container stream WAL as bank_user (a superuser, so it has the REPLICATION attribute)
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
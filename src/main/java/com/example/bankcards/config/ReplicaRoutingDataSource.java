@@ -0,0 +1,123 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out replica connections to read-only transactions and primary connections to everything else.
+ * The replica is only used while its replication lag, measured every few seconds with
+ * {@code lag-query}, stays within {@code max-lag-seconds}; until the first measurement, and whenever
+ * it fails or the lag is too high, read-only work falls back to the primary.
+ *
+ * <p>The routing decision is taken when the physical connection is fetched, so it has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction is then
+ * already marked read-only when its first statement asks for a connection.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbackConnections = new LongAdder();
+
+    private volatile boolean replicaUsable;
+    private volatile Double lagSeconds;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, HikariDataSource replica,
+                                    String lagQuery, double maxLagSeconds) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        setTargetDataSources(Map.of(Pool.PRIMARY, primary, Pool.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryConnections.increment();
+            return Pool.PRIMARY;
+        }
+        if (replicaUsable) {
+            replicaConnections.increment();
+            return Pool.REPLICA;
+        }
+        fallbackConnections.increment();
+        return Pool.PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkReplicaLag() {
+        boolean wasUsable = replicaUsable;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            rs.next();
+            double lag = rs.getDouble(1);
+            lagSeconds = lag;
+            replicaUsable = lag <= maxLagSeconds;
+        } catch (SQLException e) {
+            lagSeconds = null;
+            replicaUsable = false;
+            if (wasUsable) {
+                log.warn("Replica lag check failed, reading from primary: {}", e.getMessage());
+            }
+        }
+        if (wasUsable && !replicaUsable && lagSeconds != null) {
+            log.warn("Replica is {}s behind, reading from primary until it catches up", lagSeconds);
+        } else if (!wasUsable && replicaUsable) {
+            log.info("Replica is {}s behind, reading from replica", lagSeconds);
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public RoutingStats getStats() {
+        return new RoutingStats(replicaUsable, lagSeconds, fallbackConnections.sum(), List.of(
+                poolStats(Pool.PRIMARY, primary, primaryConnections.sum() + fallbackConnections.sum()),
+                poolStats(Pool.REPLICA, replica, replicaConnections.sum())));
+    }
+
+    private PoolStats poolStats(Pool pool, HikariDataSource dataSource, long connections) {
+        HikariPoolMXBean bean = dataSource.getHikariPoolMXBean();
+        return bean == null
+                ? new PoolStats(pool, connections, 0, 0, 0, 0)
+                : new PoolStats(pool, connections, bean.getActiveConnections(), bean.getIdleConnections(),
+                        bean.getTotalConnections(), bean.getThreadsAwaitingConnection());
+    }
+
+    public enum Pool {
+        PRIMARY, REPLICA
+    }
+
+    /**
+     * {@code connections} counts connections handed out through the router; the rest is a snapshot of
+     * the Hikari pool.
+     */
+    public record PoolStats(Pool pool, long connections, int active, int idle, int total, int awaiting) {
+    }
+
+    public record RoutingStats(boolean replicaUsable, Double lagSeconds, long fallbacks, List<PoolStats> pools) {
+    }
+}
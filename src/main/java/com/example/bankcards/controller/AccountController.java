@@ -1,16 +1,25 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.AccountDto;
+import com.example.bankcards.dto.HistoricalBalanceDto;
+import com.example.bankcards.dto.LedgerBalanceDto;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.service.AccountService;
+import com.example.bankcards.service.AccountShardService;
+import com.example.bankcards.service.BalanceSnapshotService;
+import com.example.bankcards.service.LedgerService;
 import com.example.bankcards.service.SecurityService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -22,6 +31,9 @@ public class AccountController {
 
     private final AccountService accountService;
     private final SecurityService securityService;
+    private final AccountShardService accountShardService;
+    private final LedgerService ledgerService;
+    private final BalanceSnapshotService balanceSnapshotService;
 
     @PostMapping
     public ResponseEntity<AccountDto> createAccount(@Valid @RequestBody Account account) {
@@ -31,12 +43,19 @@ public class AccountController {
     }
 
     @GetMapping("/my-accounts")
-    public ResponseEntity<List<AccountDto>> getMyAccounts() {
+    public ResponseEntity<List<AccountDto>> getMyAccounts(WebRequest request) {
         Long userId = securityService.getCurrentUserId();
         log.info("getMyAccounts: userId = {}", userId);
+        String etag = accountService.getUserAccountsEtag(userId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<AccountDto> accounts = accountService.getUserAccounts(userId);
         log.info("getMyAccounts: accounts = {}", accounts.size(), userId);
-        return ResponseEntity.ok(accounts);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(accounts);
     }
 
     @GetMapping("/{id}")
@@ -69,6 +88,29 @@ public class AccountController {
         return ResponseEntity.ok(accountService.convertToDto(updatedAccount));
     }
 
+    @PutMapping("/{id}/balance-shards")
+    public ResponseEntity<AccountDto> enableBalanceSharding(
+            @PathVariable Long id,
+            @RequestParam int shards) {
+        securityService.checkAdminAccess();
+        Account account = accountShardService.enableSharding(id, shards);
+        return ResponseEntity.ok(accountService.convertToDto(account));
+    }
+
+    @GetMapping("/{id}/ledger-balance")
+    public ResponseEntity<LedgerBalanceDto> getLedgerBalance(@PathVariable Long id) {
+        securityService.checkAdminAccess();
+        AccountDto account = accountService.getAccountById(id);
+        return ResponseEntity.ok(LedgerBalanceDto.of(id, account.getBalance(), ledgerService.getLedgerBalance(id)));
+    }
+
+    @GetMapping("/{accountNumber}/balance")
+    public ResponseEntity<HistoricalBalanceDto> getBalanceAt(
+            @PathVariable String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(balanceSnapshotService.getBalanceAt(accountNumber, at));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAccount(@PathVariable Long id) {
         securityService.checkAdminAccess();
@@ -0,0 +1,35 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.config.ReplicaRoutingDataSource;
+import com.example.bankcards.security.BoundedPasswordEncoder;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+public class AdminController {
+
+    private final ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource;
+    private final BoundedPasswordEncoder passwordEncoder;
+
+    @GetMapping("/datasource-stats")
+    public ResponseEntity<ReplicaRoutingDataSource.RoutingStats> getDataSourceStats() {
+        ReplicaRoutingDataSource routing = replicaRoutingDataSource.getIfAvailable();
+        if (routing == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(routing.getStats());
+    }
+
+    @GetMapping("/password-hashing-stats")
+    public ResponseEntity<BoundedPasswordEncoder.Stats> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.getStats());
+    }
+}
@@ -10,8 +10,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -49,14 +51,22 @@ public class CardController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDirection,
-            @RequestParam(required = false) Card.CardStatus status) {
+            @RequestParam(required = false) Card.CardStatus status,
+            WebRequest request) {
 
         Long userId = securityService.getCurrentUserId();
+        String etag = cardService.getUserCardsEtag(userId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         PageRequest pageable = PageRequest.of(page, size,
                 Sort.by(Sort.Direction.fromString(sortDirection), sortBy));
 
         Page<CardDto> cards = cardService.getUserCardsPaginated(userId, status, pageable);
-        return ResponseEntity.ok(cards);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(cards);
     }
 
     @GetMapping("/admin/all-cards")
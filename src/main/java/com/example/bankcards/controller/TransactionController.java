@@ -1,21 +1,34 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
 import com.example.bankcards.dto.CardToAccountTransferRequest;
 import com.example.bankcards.dto.CardToCardTransferRequest;
+import com.example.bankcards.dto.MonthlySummaryDto;
 import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransactionPageResponse;
 import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.Account;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.AccountLockManager;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.service.MonthlySummaryService;
 import com.example.bankcards.service.SecurityService;
+import com.example.bankcards.service.TransactionExportService;
 import com.example.bankcards.service.TransactionService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -24,39 +37,110 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class TransactionController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String DEFAULT_PAGE_SIZE = "50";
+
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final AccountLockManager accountLockManager;
     private final SecurityService securityService;
     private final CardRepository cardRepository;
+    private final TransactionExportService transactionExportService;
+    private final MonthlySummaryService monthlySummaryService;
 
     @PostMapping("/transfer")
-    public ResponseEntity<TransactionDto> transfer(@Valid @RequestBody TransferRequest transferRequest) {
-        TransactionDto transaction = transactionService.transfer(transferRequest);
-        return ResponseEntity.ok(transaction);
+    public ResponseEntity<TransactionDto> transfer(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestParam(defaultValue = "false") boolean async,
+            @Valid @RequestBody TransferRequest transferRequest) {
+        TransactionDto transaction = idempotencyService.execute(idempotencyKey, "TRANSFER", transferRequest,
+                () -> async ? transactionService.submitTransfer(transferRequest) : transactionService.transfer(transferRequest));
+        return toResponse(transaction, async);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResponse> batchTransfer(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody BatchTransferRequest request) {
+        BatchTransferResponse response = idempotencyService.executeBatch(idempotencyKey, request.getTransfers());
+        return ResponseEntity.ok(response);
     }
 
     @PostMapping("/card-to-card")
     public ResponseEntity<TransactionDto> cardToCardTransfer(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestParam(defaultValue = "false") boolean async,
             @Valid @RequestBody CardToCardTransferRequest request) {
-        TransactionDto transaction = transactionService.cardToCardTransfer(request);
-        return ResponseEntity.ok(transaction);
+        TransactionDto transaction = idempotencyService.execute(idempotencyKey, "CARD_TO_CARD", request,
+                () -> async ? transactionService.submitCardToCardTransfer(request) : transactionService.cardToCardTransfer(request));
+        return toResponse(transaction, async);
     }
 
     @PostMapping("/card-to-account")
     public ResponseEntity<TransactionDto> cardToAccountTransfer(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestParam(defaultValue = "false") boolean async,
             @Valid @RequestBody CardToAccountTransferRequest request) {
-        TransactionDto transaction = transactionService.cardToAccountTransfer(request);
+        TransactionDto transaction = idempotencyService.execute(idempotencyKey, "CARD_TO_ACCOUNT", request,
+                () -> async ? transactionService.submitCardToAccountTransfer(request) : transactionService.cardToAccountTransfer(request));
+        return toResponse(transaction, async);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam String accountNumber,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        TransactionExportService.Format exportFormat = TransactionExportService.Format.of(format);
+        Account account = transactionExportService.resolveAccount(accountNumber);
+        Long accountId = account.getId();
+
+        StreamingResponseBody body = out -> transactionExportService.export(
+                accountId, accountNumber, startDate, endDate, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions-" + accountNumber + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<MonthlySummaryDto> getMonthlySummary(@RequestParam(required = false) YearMonth month) {
+        MonthlySummaryDto summary = monthlySummaryService.getSummary(month != null ? month : YearMonth.now());
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping("/status/{transactionId}")
+    public ResponseEntity<TransactionDto> getTransactionStatus(@PathVariable String transactionId) {
+        TransactionDto transaction = transactionService.getTransactionStatus(transactionId);
         return ResponseEntity.ok(transaction);
     }
 
     @GetMapping("/admin/card/{cardId}")
-    public ResponseEntity<List<TransactionDto>> getCardTransactions(@PathVariable Long cardId) {
+    public ResponseEntity<TransactionPageResponse> getCardTransactions(
+            @PathVariable Long cardId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
         securityService.checkCardAccess(cardId);
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new RuntimeException("Card not found"));
-        List<TransactionDto> transactions = transactionService.getAccountTransactions(card.getAccount().getAccountNumber());
+        TransactionPageResponse transactions = transactionService.getAccountTransactions(
+                card.getAccount().getAccountNumber(), cursor, limit);
         return ResponseEntity.ok(transactions);
     }
 
+    @GetMapping("/admin/lock-stats")
+    public ResponseEntity<List<AccountLockManager.StripeStats>> getAccountLockStats() {
+        return ResponseEntity.ok(accountLockManager.getContendedStripes());
+    }
+
+    @PostMapping("/admin/summary/recompute")
+    public ResponseEntity<Void> recomputeMonthlySummary(@RequestParam YearMonth month) {
+        monthlySummaryService.recomputeMonth(month);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/admin/{id}")
     public ResponseEntity<TransactionDto> getTransactionById(@PathVariable Long id) {
         TransactionDto transaction = transactionService.getTransactionById(id);
@@ -64,24 +148,37 @@ public class TransactionController {
     }
 
     @GetMapping("/admin/user/{userId}")
-    public ResponseEntity<List<TransactionDto>> getUserTransactions(@PathVariable Long userId) {
-        List<TransactionDto> transactions = transactionService.getUserTransactions(userId);
+    public ResponseEntity<TransactionPageResponse> getUserTransactions(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        TransactionPageResponse transactions = transactionService.getUserTransactions(userId, cursor, limit);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("admin/account/{accountNumber}")
-    public ResponseEntity<List<TransactionDto>> getAccountTransactions(@PathVariable String accountNumber) {
-        List<TransactionDto> transactions = transactionService.getAccountTransactions(accountNumber);
+    public ResponseEntity<TransactionPageResponse> getAccountTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        TransactionPageResponse transactions = transactionService.getAccountTransactions(accountNumber, cursor, limit);
         return ResponseEntity.ok(transactions);
     }
 
     @GetMapping("admin/user/{userId}/date-range")
-    public ResponseEntity<List<TransactionDto>> getTransactionsByDateRange(
+    public ResponseEntity<TransactionPageResponse> getTransactionsByDateRange(
             @PathVariable Long userId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
 
-        List<TransactionDto> transactions = transactionService.getTransactionsByDateRange(userId, startDate, endDate);
+        TransactionPageResponse transactions = transactionService.getTransactionsByDateRange(
+                userId, startDate, endDate, cursor, limit);
         return ResponseEntity.ok(transactions);
     }
+
+    private ResponseEntity<TransactionDto> toResponse(TransactionDto transaction, boolean async) {
+        return async ? ResponseEntity.status(HttpStatus.ACCEPTED).body(transaction) : ResponseEntity.ok(transaction);
+    }
 }
\ No newline at end of file
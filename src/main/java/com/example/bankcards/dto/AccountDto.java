@@ -19,6 +19,7 @@ public class AccountDto {
     private LocalDateTime createdAt;
     private Long userId;
     private String userFullName;
+    private int balanceShards;
     private List<CardDto> cards;
 
 }
@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountMonthlyTotalsDto {
+    private String accountNumber;
+    private String currency;
+    private BigDecimal inflow;
+    private BigDecimal outflow;
+    private long transactionCount;
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferItemResult {
+    private int index;
+    private Transaction.TransactionStatus status;
+    private String transactionId;
+    private String message;
+}
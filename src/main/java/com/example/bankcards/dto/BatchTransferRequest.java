@@ -0,0 +1,15 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequest {
+    @NotEmpty(message = "At least one transfer is required")
+    @Size(max = 10000, message = "A batch may contain at most 10000 transfers")
+    private List<@Valid TransferRequest> transfers;
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+    private int total;
+    private int completed;
+    private int failed;
+    private List<BatchTransferItemResult> results;
+
+    public static BatchTransferResponse of(List<BatchTransferItemResult> results) {
+        int completed = (int) results.stream()
+                .filter(result -> result.getStatus() == Transaction.TransactionStatus.COMPLETED)
+                .count();
+        return BatchTransferResponse.builder()
+                .total(results.size())
+                .completed(completed)
+                .failed(results.size() - completed)
+                .results(results)
+                .build();
+    }
+}
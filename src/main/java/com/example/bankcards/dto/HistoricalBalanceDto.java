@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoricalBalanceDto {
+    private String accountNumber;
+    private LocalDateTime at;
+    private BigDecimal balance;
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerBalanceDto {
+    private Long accountId;
+    private BigDecimal cachedBalance;
+    private BigDecimal ledgerBalance;
+    private boolean consistent;
+
+    public static LedgerBalanceDto of(Long accountId, BigDecimal cachedBalance, BigDecimal ledgerBalance) {
+        return LedgerBalanceDto.builder()
+                .accountId(accountId)
+                .cachedBalance(cachedBalance)
+                .ledgerBalance(ledgerBalance)
+                .consistent(cachedBalance.compareTo(ledgerBalance) == 0)
+                .build();
+    }
+}
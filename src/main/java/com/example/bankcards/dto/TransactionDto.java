@@ -1,12 +1,16 @@
 package com.example.bankcards.dto;
 
 import com.example.bankcards.entity.Transaction;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TransactionDto {
     private Long id;
     private String transactionId;
@@ -20,4 +24,5 @@ public class TransactionDto {
     private String fromAccountNumber;
     private Long toAccountId;
     private String toAccountNumber;
+    private String failureReason;
 }
\ No newline at end of file
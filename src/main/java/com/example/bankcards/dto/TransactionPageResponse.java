@@ -0,0 +1,18 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageResponse {
+    private List<TransactionDto> items;
+    // Pass back as ?cursor= to get the next page; null on the last page
+    private String nextCursor;
+}
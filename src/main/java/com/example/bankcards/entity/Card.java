@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Card {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "encrypted_card_number", unique = true, nullable = false)
@@ -47,6 +48,11 @@ public class Card {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    @JsonIgnore
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
@@ -0,0 +1,52 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_user_key",
+                columnNames = {"user_id", "idempotency_key"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String operation;
+
+    // Primary key of the Transaction row produced by the original request
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    // Base64 SHA-256 of the request body the key was first used with
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    // JSON of the batch response, for operations that produce more than one transaction
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
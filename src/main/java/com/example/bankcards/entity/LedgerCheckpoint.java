@@ -0,0 +1,30 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ledger balance of an account as of {@link #coveredUntil}. The current balance is this balance
+ * plus the ledger entries created after it.
+ */
+@Entity
+@Table(name = "ledger_checkpoints")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCheckpoint {
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "covered_until", nullable = false)
+    private LocalDateTime coveredUntil;
+}
@@ -0,0 +1,41 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One line of the double-entry ledger. Every completed transfer writes a debit line with a negative
+ * amount for the source account and a credit line with a positive amount for the target account,
+ * so the lines of a transaction always sum to zero. Rows are only ever inserted.
+ *
+ * <p>Account and transaction are kept as plain ids without foreign keys: the ledger is the audit
+ * trail and has to outlive the rows it describes.
+ */
+@Entity
+@Table(name = "ledger_entries")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.util.TransactionIdGenerator;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,7 +18,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -43,6 +45,12 @@ public class Transaction {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(name = "from_card_id")
+    private Long fromCardId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "from_account_id")
     private Account fromAccount;
@@ -60,7 +68,7 @@ public class Transaction {
             status = TransactionStatus.PENDING;
         }
         if (transactionId == null) {
-            transactionId = "TXN" + System.currentTimeMillis();
+            transactionId = TransactionIdGenerator.getDefault().nextTransactionId();
         }
     }
 
@@ -0,0 +1,26 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deleted user. Kept for one token lifetime, so tokens issued to the user are rejected until they
+ * expire even though the user row is gone.
+ */
+@Entity
+@Table(name = "user_deletions")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDeletion {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
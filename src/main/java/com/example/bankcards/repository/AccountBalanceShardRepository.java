@@ -0,0 +1,62 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@Repository
+@RequiredArgsConstructor
+public class AccountBalanceShardRepository {
+
+    private static final String CREDIT_SQL =
+            "UPDATE account_balance_shards SET balance = balance + ? WHERE account_id = ? AND shard_no = ?";
+
+    private static final String LOCK_SQL =
+            "SELECT balance FROM account_balance_shards WHERE account_id = ? ORDER BY shard_no FOR UPDATE";
+
+    private static final String RESET_SQL =
+            "UPDATE account_balance_shards SET balance = 0 WHERE account_id = ? AND balance <> 0";
+
+    private static final String SUM_SQL =
+            "SELECT COALESCE(SUM(balance), 0) FROM account_balance_shards WHERE account_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO account_balance_shards (account_id, shard_no, balance) VALUES (?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void credit(Long accountId, int shardNo, BigDecimal amount) {
+        int updated = jdbcTemplate.update(CREDIT_SQL, amount, accountId, shardNo);
+        if (updated != 1) {
+            throw new IllegalStateException("Balance shard " + shardNo + " missing for account " + accountId);
+        }
+    }
+
+    /**
+     * Locks every shard of the account, zeroes them and returns what they held.
+     * Rows are locked before they are read, so a credit committed meanwhile is never lost.
+     */
+    public BigDecimal drain(Long accountId) {
+        List<BigDecimal> balances = jdbcTemplate.queryForList(LOCK_SQL, BigDecimal.class, accountId);
+        BigDecimal total = balances.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.signum() != 0) {
+            jdbcTemplate.update(RESET_SQL, accountId);
+        }
+        return total;
+    }
+
+    public BigDecimal sumBalance(Long accountId) {
+        return jdbcTemplate.queryForObject(SUM_SQL, BigDecimal.class, accountId);
+    }
+
+    public void createShards(Long accountId, int fromShard, int toShard) {
+        List<Object[]> rows = IntStream.range(fromShard, toShard)
+                .mapToObj(shardNo -> new Object[]{accountId, shardNo})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+}
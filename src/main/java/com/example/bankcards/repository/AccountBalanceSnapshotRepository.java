@@ -0,0 +1,68 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class AccountBalanceSnapshotRepository {
+
+    /*
+     * Closing balance of every account with entries on the day: its previous snapshot plus the day's
+     * entries. An account without an earlier snapshot is derived from its ledger checkpoint instead,
+     * adding the entries between the checkpoint and the end of the day (or taking back those after it).
+     */
+    private static final String SNAPSHOT_DAY_SQL =
+            "WITH d AS (SELECT e.account_id, SUM(e.amount) AS delta FROM ledger_entries e " +
+            "    WHERE e.created_at >= ? AND e.created_at < ? GROUP BY e.account_id) " +
+            "INSERT INTO account_balance_snapshots (account_id, day, closing_balance) " +
+            "SELECT d.account_id, ?, COALESCE(p.closing_balance + d.delta, c.balance + (" +
+            "    SELECT COALESCE(SUM(CASE WHEN e.created_at > c.covered_until THEN e.amount ELSE -e.amount END), 0) " +
+            "    FROM ledger_entries e WHERE e.account_id = d.account_id " +
+            "    AND ((e.created_at > c.covered_until AND e.created_at < ?) " +
+            "      OR (e.created_at >= ? AND e.created_at <= c.covered_until)))) " +
+            "FROM d JOIN ledger_checkpoints c ON c.account_id = d.account_id " +
+            "LEFT JOIN LATERAL (SELECT s.closing_balance FROM account_balance_snapshots s " +
+            "    WHERE s.account_id = d.account_id AND s.day < ? ORDER BY s.day DESC LIMIT 1) p ON true " +
+            "ON CONFLICT (account_id, day) DO UPDATE SET closing_balance = EXCLUDED.closing_balance";
+
+    private static final String LAST_DAY_SQL =
+            "SELECT MAX(day) FROM account_balance_snapshots";
+
+    private static final String LATEST_BEFORE_SQL =
+            "SELECT day, closing_balance FROM account_balance_snapshots " +
+            "WHERE account_id = ? AND day < ? ORDER BY day DESC LIMIT 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Writes (or rewrites) the snapshots of {@code day}. Expects the snapshots of earlier days to be
+     * complete, since they are what the day's entries are added to.
+     */
+    public int snapshotDay(LocalDate day) {
+        Timestamp dayStart = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp nextDayStart = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        return jdbcTemplate.update(SNAPSHOT_DAY_SQL,
+                dayStart, nextDayStart, Date.valueOf(day), nextDayStart, nextDayStart, Date.valueOf(day));
+    }
+
+    public Optional<LocalDate> findLastDay() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(LAST_DAY_SQL, LocalDate.class));
+    }
+
+    public Optional<BalanceSnapshot> findLatestBefore(Long accountId, LocalDate day) {
+        return jdbcTemplate.query(LATEST_BEFORE_SQL,
+                (rs, rowNum) -> new BalanceSnapshot(rs.getObject("day", LocalDate.class), rs.getBigDecimal("closing_balance")),
+                accountId, Date.valueOf(day)).stream().findFirst();
+    }
+
+    public record BalanceSnapshot(LocalDate day, BigDecimal closingBalance) {
+    }
+}
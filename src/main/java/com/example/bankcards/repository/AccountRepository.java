@@ -3,11 +3,16 @@ package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +26,50 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findActiveAccountsByUserId(@Param("userId") Long userId);
 
     boolean existsByAccountNumber(String accountNumber);
-}
\ No newline at end of file
+
+    @Query("SELECT a.id FROM Account a WHERE a.user.id = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a.accountNumber FROM Account a WHERE a.id = :id")
+    Optional<String> findAccountNumberById(@Param("id") Long id);
+
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accountNumbers ORDER BY a.id")
+    List<Account> findAllByAccountNumberInForUpdate(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    List<ShardedAccount> findByBalanceShardsGreaterThan(int balanceShards);
+
+    /**
+     * Everything an account listing of the user is built from, reduced to a few numbers that change
+     * whenever any of it does: row versions, balances parked on shards and the owner's name.
+     */
+    @Query(value = "SELECT COUNT(a.id) AS count, COALESCE(SUM(a.version), 0) AS versions, " +
+            "(SELECT COALESCE(SUM(s.balance), 0) FROM account_balance_shards s JOIN accounts sa ON sa.id = s.account_id " +
+            "WHERE sa.user_id = :userId AND sa.balance_shards > 0) AS \"shardBalance\", " +
+            "(SELECT u.updated_at FROM users u WHERE u.id = :userId) AS \"userUpdatedAt\" " +
+            "FROM accounts a WHERE a.user_id = :userId", nativeQuery = true)
+    ListingVersion findListingVersionByUserId(@Param("userId") Long userId);
+
+    interface ShardedAccount {
+        Long getId();
+        int getBalanceShards();
+    }
+
+    interface ListingVersion {
+        long getCount();
+        long getVersions();
+        BigDecimal getShardBalance();
+        LocalDateTime getUserUpdatedAt();
+
+        default String fingerprint() {
+            return getCount() + "-" + getVersions() + "-" + getShardBalance().toPlainString() + "-" + getUserUpdatedAt();
+        }
+    }
+}
@@ -9,13 +9,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long> {
 
     List<Card> findByAccountId(Long accountId);
+    List<Card> findByAccountIdIn(Collection<Long> accountIds);
     List<Card> findByAccountUserId(Long userId);
 
     @Query("SELECT c FROM Card c WHERE c.account.user.id = :userId")
@@ -37,6 +40,23 @@ public interface CardRepository extends JpaRepository<Card, Long> {
     @Query("SELECT c FROM Card c WHERE c.expiryDate < CURRENT_DATE AND c.status = 'ACTIVE'")
     List<Card> findExpiredActiveCards();
 
+    @Query("SELECT COUNT(c) AS count, COALESCE(SUM(c.version), 0) AS versions FROM Card c WHERE c.account.user.id = :userId")
+    ListingVersion findListingVersionByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT c.account.id FROM Card c WHERE c.id = :cardId")
+    Optional<Long> findAccountIdById(@Param("cardId") Long cardId);
+
+    @Query("SELECT a.user.id FROM Card c JOIN c.account a WHERE c.id = :cardId")
+    Optional<Long> findOwnerIdById(@Param("cardId") Long cardId);
+
+    @Query("SELECT DISTINCT c.account.id FROM Card c WHERE c.account.id IN :accountIds AND c.status = 'ACTIVE'")
+    Set<Long> findAccountIdsWithActiveCards(@Param("accountIds") Collection<Long> accountIds);
+
     @EntityGraph(attributePaths = {"account.user"})
     Optional<Card> findById(Long id);
-}
\ No newline at end of file
+
+    interface ListingVersion {
+        long getCount();
+        long getVersions();
+    }
+}
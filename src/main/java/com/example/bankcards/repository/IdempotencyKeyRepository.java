@@ -0,0 +1,24 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+    Optional<IdempotencyKey> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.response = :response WHERE k.id = :id")
+    int updateResponse(@Param("id") Long id, @Param("response") String response);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Long> {
+
+    /**
+     * Rolls every checkpoint with entries in {@code (coveredUntil, cutoff]} forward to {@code cutoff}
+     * in one statement. Accounts without new entries keep their older checkpoint, which is equivalent.
+     */
+    @Modifying
+    @Query(value = "UPDATE ledger_checkpoints c SET " +
+            "balance = c.balance + (SELECT COALESCE(SUM(e.amount), 0) FROM ledger_entries e " +
+            "    WHERE e.account_id = c.account_id AND e.created_at > c.covered_until AND e.created_at <= :cutoff), " +
+            "covered_until = :cutoff " +
+            "WHERE EXISTS (SELECT 1 FROM ledger_entries e " +
+            "    WHERE e.account_id = c.account_id AND e.created_at > c.covered_until AND e.created_at <= :cutoff)",
+            nativeQuery = true)
+    int advanceTo(@Param("cutoff") LocalDateTime cutoff);
+}
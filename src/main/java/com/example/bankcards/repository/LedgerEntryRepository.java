@@ -0,0 +1,34 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e " +
+            "WHERE e.accountId = :accountId AND e.createdAt > :after")
+    BigDecimal sumByAccountIdCreatedAfter(@Param("accountId") Long accountId,
+                                          @Param("after") LocalDateTime after);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e " +
+            "WHERE e.accountId = :accountId AND e.createdAt > :after AND e.createdAt <= :until")
+    BigDecimal sumByAccountIdCreatedBetween(@Param("accountId") Long accountId,
+                                            @Param("after") LocalDateTime after,
+                                            @Param("until") LocalDateTime until);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e " +
+            "WHERE e.accountId = :accountId AND e.createdAt >= :from AND e.createdAt <= :until")
+    BigDecimal sumByAccountIdCreatedFrom(@Param("accountId") Long accountId,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,115 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.AccountMonthlyTotalsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class MonthlyAccountTotalsRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INCREMENT_SQL =
+            "INSERT INTO monthly_account_totals (account_id, month, currency, shard_no, inflow, outflow, transaction_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (account_id, month, currency, shard_no) DO UPDATE SET " +
+            "inflow = monthly_account_totals.inflow + EXCLUDED.inflow, " +
+            "outflow = monthly_account_totals.outflow + EXCLUDED.outflow, " +
+            "transaction_count = monthly_account_totals.transaction_count + EXCLUDED.transaction_count";
+
+    // Every account of the user, with zero totals for those without transfers that month
+    private static final String FIND_BY_USER_SQL =
+            "SELECT a.account_number, COALESCE(m.currency, a.currency) AS currency, " +
+            "COALESCE(SUM(m.inflow), 0) AS inflow, COALESCE(SUM(m.outflow), 0) AS outflow, " +
+            "COALESCE(SUM(m.transaction_count), 0) AS transaction_count " +
+            "FROM accounts a LEFT JOIN monthly_account_totals m ON m.account_id = a.id AND m.month = ? " +
+            "WHERE a.user_id = ? " +
+            "GROUP BY a.id, a.account_number, COALESCE(m.currency, a.currency) ORDER BY a.id";
+
+    /*
+     * Adds the difference between the recount and the stored totals to shard 0 of every account whose
+     * totals drifted, and writes nothing for the others. Recount and stored totals are read in the same
+     * snapshot, where a transfer's transaction row and its increments are either both visible or both
+     * not; increments committed after the snapshot stay untouched, as the update adds to the current row.
+     */
+    private static final String RECOMPUTE_MONTH_SQL =
+            "INSERT INTO monthly_account_totals AS m " +
+            "(account_id, month, currency, shard_no, inflow, outflow, transaction_count) " +
+            "SELECT COALESCE(r.account_id, c.account_id), ?, COALESCE(r.currency, c.currency), 0, " +
+            "COALESCE(r.inflow, 0) - COALESCE(c.inflow, 0), COALESCE(r.outflow, 0) - COALESCE(c.outflow, 0), " +
+            "COALESCE(r.transaction_count, 0) - COALESCE(c.transaction_count, 0) FROM (" +
+            "    SELECT f.account_id, f.currency, SUM(f.inflow) AS inflow, SUM(f.outflow) AS outflow, " +
+            "    COUNT(*) AS transaction_count FROM (" +
+            "        SELECT t.to_account_id AS account_id, t.currency, t.amount AS inflow, 0 AS outflow " +
+            "        FROM transactions t WHERE t.status = 'COMPLETED' AND t.to_account_id IS NOT NULL " +
+            "        AND t.created_at >= ? AND t.created_at < ? " +
+            "        UNION ALL " +
+            "        SELECT t.from_account_id, t.currency, 0, t.amount " +
+            "        FROM transactions t WHERE t.status = 'COMPLETED' AND t.from_account_id IS NOT NULL " +
+            "        AND t.created_at >= ? AND t.created_at < ?) f " +
+            "    GROUP BY f.account_id, f.currency) r " +
+            "FULL JOIN (" +
+            "    SELECT s.account_id, s.currency, SUM(s.inflow) AS inflow, SUM(s.outflow) AS outflow, " +
+            "    SUM(s.transaction_count) AS transaction_count " +
+            "    FROM monthly_account_totals s WHERE s.month = ? GROUP BY s.account_id, s.currency) c " +
+            "ON c.account_id = r.account_id AND c.currency = r.currency " +
+            "WHERE COALESCE(r.inflow, 0) <> COALESCE(c.inflow, 0) OR COALESCE(r.outflow, 0) <> COALESCE(c.outflow, 0) " +
+            "OR COALESCE(r.transaction_count, 0) <> COALESCE(c.transaction_count, 0) " +
+            "ON CONFLICT (account_id, month, currency, shard_no) DO UPDATE SET " +
+            "inflow = m.inflow + EXCLUDED.inflow, " +
+            "outflow = m.outflow + EXCLUDED.outflow, " +
+            "transaction_count = m.transaction_count + EXCLUDED.transaction_count";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds to the totals, creating rows as needed. Must run in the transaction that completes the
+     * transfers; rows of shard 0 additionally need the account locked.
+     */
+    public void incrementAll(List<Increment> increments) {
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, increments, BATCH_SIZE, (ps, increment) -> {
+            ps.setLong(1, increment.accountId());
+            ps.setDate(2, Date.valueOf(increment.month()));
+            ps.setString(3, increment.currency());
+            ps.setInt(4, increment.shardNo());
+            ps.setBigDecimal(5, increment.inflow());
+            ps.setBigDecimal(6, increment.outflow());
+            ps.setLong(7, increment.transactionCount());
+        });
+    }
+
+    public List<AccountMonthlyTotalsDto> findByUserIdAndMonth(Long userId, LocalDate month) {
+        return jdbcTemplate.query(FIND_BY_USER_SQL,
+                (rs, rowNum) -> AccountMonthlyTotalsDto.builder()
+                        .accountNumber(rs.getString("account_number"))
+                        .currency(rs.getString("currency"))
+                        .inflow(rs.getBigDecimal("inflow"))
+                        .outflow(rs.getBigDecimal("outflow"))
+                        .transactionCount(rs.getLong("transaction_count"))
+                        .build(),
+                Date.valueOf(month), userId);
+    }
+
+    /**
+     * Corrects the totals of {@code month} to a recount of its completed transactions, without blocking
+     * the transfers that keep incrementing them. Returns the number of accounts that had drifted.
+     */
+    public int recomputeMonth(LocalDate month) {
+        Timestamp monthStart = Timestamp.valueOf(month.atStartOfDay());
+        Timestamp nextMonthStart = Timestamp.valueOf(month.plusMonths(1).atStartOfDay());
+        return jdbcTemplate.update(RECOMPUTE_MONTH_SQL,
+                Date.valueOf(month), monthStart, nextMonthStart, monthStart, nextMonthStart, Date.valueOf(month));
+    }
+
+    public record Increment(Long accountId, LocalDate month, String currency, int shardNo,
+                            BigDecimal inflow, BigDecimal outflow, long transactionCount) {
+    }
+}
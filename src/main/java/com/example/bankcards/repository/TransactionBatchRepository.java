@@ -0,0 +1,46 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class TransactionBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO transactions " +
+            "(transaction_id, amount, currency, type, status, description, from_account_id, to_account_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Debit and credit line of one transaction; ids come from the ledger_entries_seq column default
+    private static final String LEDGER_SQL = "INSERT INTO ledger_entries (transaction_id, account_id, amount, created_at) " +
+            "SELECT t.id, t.from_account_id, -t.amount, t.created_at FROM transactions t WHERE t.transaction_id = ? " +
+            "UNION ALL " +
+            "SELECT t.id, t.to_account_id, t.amount, t.created_at FROM transactions t WHERE t.transaction_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<Transaction> transactions) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, BATCH_SIZE, (ps, transaction) -> {
+            ps.setString(1, transaction.getTransactionId());
+            ps.setBigDecimal(2, transaction.getAmount());
+            ps.setString(3, transaction.getCurrency());
+            ps.setString(4, transaction.getType().name());
+            ps.setString(5, transaction.getStatus().name());
+            ps.setString(6, transaction.getDescription());
+            ps.setObject(7, transaction.getFromAccount() != null ? transaction.getFromAccount().getId() : null);
+            ps.setObject(8, transaction.getToAccount() != null ? transaction.getToAccount().getId() : null);
+            ps.setTimestamp(9, Timestamp.valueOf(transaction.getCreatedAt()));
+        });
+        jdbcTemplate.batchUpdate(LEDGER_SQL, transactions, BATCH_SIZE, (ps, transaction) -> {
+            ps.setString(1, transaction.getTransactionId());
+            ps.setString(2, transaction.getTransactionId());
+        });
+    }
+}
@@ -1,25 +1,100 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.TransactionDto;
 import com.example.bankcards.entity.Transaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByFromAccountIdOrToAccountId(Long fromAccountId, Long toAccountId);
 
-    @Query("SELECT t FROM Transaction t WHERE t.fromAccount.user.id = :userId OR t.toAccount.user.id = :userId ORDER BY t.createdAt DESC")
-    List<Transaction> findByUserId(@Param("userId") Long userId);
+    /**
+     * Ids of the next history page of the given accounts, newest first, strictly after the
+     * {@code (beforeCreatedAt, beforeId)} keyset position and not older than {@code since}.
+     * For every account each side of the transfer is a backward range scan of its
+     * (account, created_at, id) index that stops after {@code limit} rows, so the cost of a page
+     * depends on the page size and the number of accounts, never on how deep the page is.
+     */
+    @Query(value = "SELECT p.id FROM accounts a CROSS JOIN LATERAL (" +
+            "(SELECT t.id, t.created_at FROM transactions t " +
+            "  WHERE t.from_account_id = a.id AND t.created_at >= :since " +
+            "  AND (t.created_at, t.id) < (:beforeCreatedAt, :beforeId) " +
+            "  ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT t.id, t.created_at FROM transactions t " +
+            "  WHERE t.to_account_id = a.id AND t.created_at >= :since " +
+            "  AND (t.created_at, t.id) < (:beforeCreatedAt, :beforeId) " +
+            "  ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)" +
+            ") p WHERE a.id IN (:accountIds) " +
+            // A transfer between two of the accounts shows up once per side
+            "GROUP BY p.id, p.created_at ORDER BY p.created_at DESC, p.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findPageIds(@Param("accountIds") Collection<Long> accountIds,
+                           @Param("since") LocalDateTime since,
+                           @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                           @Param("beforeId") Long beforeId,
+                           @Param("limit") int limit);
 
-    List<Transaction> findByFromAccountAccountNumberOrToAccountAccountNumber(String fromAccount, String toAccount);
+    /**
+     * History rows read straight into DTOs with both account numbers joined in, so a page is one
+     * query and nothing is hydrated, snapshotted for dirty checking or proxied.
+     */
+    @Query("SELECT new com.example.bankcards.dto.TransactionDto(t.id, t.transactionId, t.amount, t.currency, " +
+            "t.type, t.status, t.description, t.createdAt, f.id, f.accountNumber, o.id, o.accountNumber, t.failureReason) " +
+            "FROM Transaction t LEFT JOIN t.fromAccount f LEFT JOIN t.toAccount o WHERE t.id IN :ids")
+    List<TransactionDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT t FROM Transaction t WHERE (t.fromAccount.user.id = :userId OR t.toAccount.user.id = :userId) AND t.createdAt BETWEEN :startDate AND :endDate ORDER BY t.createdAt DESC")
-    List<Transaction> findByUserIdAndDateRange(@Param("userId") Long userId,
-                                               @Param("startDate") LocalDateTime startDate,
-                                               @Param("endDate") LocalDateTime endDate);
+    /*
+     * The two sides of an account's history for export, each in index order so the database can
+     * stream it without sorting. A transfer from the account to itself only appears as outgoing.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t FROM Transaction t WHERE t.fromAccount.id = :accountId " +
+            "AND t.createdAt >= :since AND t.createdAt <= :until ORDER BY t.createdAt, t.id")
+    Stream<Transaction> streamOutgoing(@Param("accountId") Long accountId,
+                                       @Param("since") LocalDateTime since,
+                                       @Param("until") LocalDateTime until);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t FROM Transaction t WHERE t.toAccount.id = :accountId " +
+            "AND (t.fromAccount IS NULL OR t.fromAccount.id <> :accountId) " +
+            "AND t.createdAt >= :since AND t.createdAt <= :until ORDER BY t.createdAt, t.id")
+    Stream<Transaction> streamIncoming(@Param("accountId") Long accountId,
+                                       @Param("since") LocalDateTime since,
+                                       @Param("until") LocalDateTime until);
+
+    Optional<Transaction> findByTransactionId(String transactionId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT t.id FROM Transaction t WHERE t.status = 'PENDING' AND t.createdAt < :createdBefore ORDER BY t.createdAt")
+    List<Long> findPendingIdsCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore, Pageable pageable);
+
+    @Query("SELECT t.fromCardId AS cardId, SUM(t.amount) AS total FROM Transaction t " +
+            "WHERE t.fromCardId IS NOT NULL AND t.status = 'COMPLETED' AND t.createdAt >= :since " +
+            "GROUP BY t.fromCardId")
+    List<CardSpending> sumCardSpendingSince(@Param("since") LocalDateTime since);
+
+    interface CardSpending {
+        Long getCardId();
+        BigDecimal getTotal();
+    }
 }
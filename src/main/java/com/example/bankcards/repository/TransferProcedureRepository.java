@@ -0,0 +1,42 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+@Repository
+@RequiredArgsConstructor
+public class TransferProcedureRepository {
+
+    private static final String TRANSFER_SQL = "SELECT * FROM bank_transfer(?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransferResult transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount,
+                                   String description, String transactionId, Long userId) {
+        return jdbcTemplate.queryForObject(TRANSFER_SQL, (rs, rowNum) -> {
+                    Timestamp createdAt = rs.getTimestamp("out_created_at");
+                    return new TransferResult(
+                            rs.getString("out_status"),
+                            rs.getObject("out_id", Long.class),
+                            createdAt != null ? createdAt.toLocalDateTime() : null,
+                            rs.getString("out_currency"),
+                            rs.getObject("out_from_account_id", Long.class),
+                            rs.getObject("out_to_account_id", Long.class),
+                            rs.getBigDecimal("out_from_balance"));
+                },
+                fromAccountNumber, toAccountNumber, amount, description, transactionId, userId);
+    }
+
+    public record TransferResult(String status, Long id, LocalDateTime createdAt, String currency,
+                                 Long fromAccountId, Long toAccountId, BigDecimal fromBalance) {
+
+        public boolean isCompleted() {
+            return "COMPLETED".equals(status);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.UserDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserDeletionRepository extends JpaRepository<UserDeletion, Long> {
+
+    @Query("SELECT d.userId FROM UserDeletion d WHERE d.deletedAt > :since")
+    List<Long> findUserIdsDeletedAfter(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM UserDeletion d WHERE d.deletedAt < :cutoff")
+    int deleteDeletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
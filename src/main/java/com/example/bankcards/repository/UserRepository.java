@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +25,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @EntityGraph(attributePaths = {"accounts"})
     @Query("SELECT u FROM User u")
     List<User> findAllWithAccountsAndCards();
+
+    @Query("SELECT u.id FROM User u WHERE u.status <> :status")
+    List<Long> findIdsByStatusNot(@Param("status") User.UserStatus status);
+
+    List<UpdatedUser> findByUpdatedAtAfter(LocalDateTime since);
+
+    interface UpdatedUser {
+        Long getId();
+        LocalDateTime getUpdatedAt();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt on a pool of {@code app.password-hashing.pool-size} threads, so a burst of sign-ins and
+ * sign-ups can occupy at most that many cores and leaves the rest to the other endpoints. The calling
+ * request thread waits for its hash; once {@code app.password-hashing.queue-capacity} hashes are
+ * already waiting, further calls fail at once with {@link ServiceBusyException} (503).
+ */
+@Component
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    @Autowired
+    public BoundedPasswordEncoder(@Value("${app.password-hashing.pool-size:2}") int poolSize,
+                                  @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity) {
+        this(new BCryptPasswordEncoder(), poolSize, queueCapacity);
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity) {
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public Stats getStats() {
+        long count = completed.sum();
+        return new Stats(
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                queueCapacity,
+                count,
+                rejected.sum(),
+                count == 0 ? 0 : toMillis(queueWaitNanos.sum()) / count,
+                toMillis(maxQueueWaitNanos.get()),
+                count == 0 ? 0 : toMillis(hashNanos.sum()) / count,
+                toMillis(maxHashNanos.get()));
+    }
+
+    private <T> T execute(Callable<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                record(queueWaitNanos, maxQueueWaitNanos, startedAt - submittedAt);
+                try {
+                    return hashing.call();
+                } finally {
+                    record(hashNanos, maxHashNanos, System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing queue is full, rejecting request");
+            throw new ServiceBusyException("Too many sign-in requests, please retry shortly");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public record Stats(int poolSize, int active, int queued, int queueCapacity, long completed, long rejected,
+                        double avgQueueWaitMs, double maxQueueWaitMs, double avgHashMs, double maxHashMs) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The authenticated user of the current request, resolved once and kept as a request attribute. With
+ * a {@link UserPrincipal} the id is taken from the principal; other principals, such as those of
+ * {@code @WithMockUser}, cost one lookup by username per request. Outside a request, e.g. on scheduler
+ * threads, the user is resolved on every call.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserContext {
+
+    private static final String ATTRIBUTE = CurrentUserContext.class.getName();
+
+    private final UserRepository userRepository;
+
+    public CurrentUser get() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return resolve(authentication);
+        }
+
+        CurrentUser user = (CurrentUser) request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        // Sign-in replaces the authentication halfway through its request
+        if (user == null || user.authentication() != authentication) {
+            user = resolve(authentication);
+            request.setAttribute(ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    private CurrentUser resolve(Authentication authentication) {
+        String username = authentication.getName();
+        Set<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toUnmodifiableSet());
+
+        Long id = authentication.getPrincipal() instanceof UserPrincipal principal
+                ? principal.getId()
+                : userRepository.findByUsername(username).map(User::getId).orElse(null);
+
+        return new CurrentUser(id, username, roles, authentication);
+    }
+
+    /**
+     * {@code id} is null when the principal names a user that does not exist.
+     */
+    public record CurrentUser(Long id, String username, Set<String> roles, Authentication authentication) {
+
+        public boolean isAdmin() {
+            return roles.contains("ROLE_ADMIN");
+        }
+    }
+}
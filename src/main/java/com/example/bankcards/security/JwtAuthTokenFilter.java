@@ -1,7 +1,9 @@
 package com.example.bankcards.security;
 
+import com.example.bankcards.service.TokenRevocationService;
 import com.example.bankcards.service.UserDetailsServiceImpl;
 import com.example.bankcards.util.JwtUtils;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,21 +25,23 @@ public class JwtAuthTokenFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUsernameFromJwtToken(jwt);
+            Claims claims = jwt == null ? null : jwtUtils.parseAndVerify(jwt);
+            if (claims != null) {
+                UserDetails userDetails = loadUser(claims);
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
@@ -46,6 +50,26 @@ public class JwtAuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /*
+     * In claims mode the principal comes from the verified token alone; only tokens of users updated
+     * since they were issued still load the user. Returns null for users that have been blocked.
+     */
+    private UserDetails loadUser(Claims claims) {
+        if (tokenRevocationService.isEnabled()) {
+            UserPrincipal principal = jwtUtils.getPrincipalFromClaims(claims);
+            if (principal != null) {
+                if (tokenRevocationService.isRevoked(principal.getId())) {
+                    log.warn("Rejected token of revoked user {}", principal.getUsername());
+                    return null;
+                }
+                if (!tokenRevocationService.isStale(principal.getId(), claims.getIssuedAt())) {
+                    return principal;
+                }
+            }
+        }
+        return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -0,0 +1,124 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.TransferValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes transfers that touch the same account inside this JVM before they reach the database,
+ * so hot accounts queue on a cheap in-memory lock instead of a row lock held across a transaction.
+ * Accounts are hashed onto a fixed set of stripes; unrelated accounts almost always land on
+ * different stripes and proceed in parallel. Stripes are always taken in ascending index order.
+ */
+@Service
+@Slf4j
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final boolean enabled;
+    private final long timeoutMs;
+
+    private final AtomicLongArray acquisitions;
+    private final AtomicLongArray contended;
+    private final AtomicLongArray waitNanos;
+
+    public AccountLockManager(@Value("${app.transfer.account-locks.enabled:true}") boolean enabled,
+                              @Value("${app.transfer.account-locks.stripes:256}") int stripeCount,
+                              @Value("${app.transfer.account-locks.timeout-ms:5000}") long timeoutMs) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.enabled = enabled;
+        this.timeoutMs = timeoutMs;
+        this.acquisitions = new AtomicLongArray(size);
+        this.contended = new AtomicLongArray(size);
+        this.waitNanos = new AtomicLongArray(size);
+    }
+
+    public <T> T withAccountLocks(Long firstAccountId, Long secondAccountId, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        int first = stripeFor(firstAccountId);
+        int second = stripeFor(secondAccountId);
+        int low = Math.min(first, second);
+        int high = Math.max(first, second);
+
+        lock(low);
+        try {
+            if (high != low) {
+                lock(high);
+            }
+            try {
+                return action.get();
+            } finally {
+                if (high != low) {
+                    stripes[high].unlock();
+                }
+            }
+        } finally {
+            stripes[low].unlock();
+        }
+    }
+
+    public int stripeFor(Long accountId) {
+        // Fibonacci hashing spreads sequential BIGSERIAL ids evenly over the stripes
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public List<StripeStats> getContendedStripes() {
+        List<StripeStats> stats = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            if (contended.get(i) > 0) {
+                stats.add(new StripeStats(i, acquisitions.get(i), contended.get(i),
+                        TimeUnit.NANOSECONDS.toMillis(waitNanos.get(i)), stripes[i].getQueueLength()));
+            }
+        }
+        stats.sort(Comparator.comparingLong(StripeStats::contended).reversed());
+        return stats;
+    }
+
+    private void lock(int stripe) {
+        ReentrantLock lock = stripes[stripe];
+        acquisitions.incrementAndGet(stripe);
+        if (lock.tryLock()) {
+            return;
+        }
+
+        contended.incrementAndGet(stripe);
+        long start = System.nanoTime();
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out after {} ms waiting for account lock stripe {}", timeoutMs, stripe);
+                throw new TransferValidationException("Account is busy, please retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferValidationException("Transfer interrupted while waiting for account lock");
+        } finally {
+            waitNanos.addAndGet(stripe, System.nanoTime() - start);
+        }
+    }
+
+    public record StripeStats(int stripe, long acquisitions, long contended, long waitMillis, int queueLength) {
+    }
+}
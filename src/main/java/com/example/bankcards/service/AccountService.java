@@ -10,6 +10,7 @@ public interface AccountService {
     AccountDto getAccountById(Long id);
     AccountDto getAccountByNumber(String accountNumber);
     List<AccountDto> getUserAccounts(Long userId);
+    String getUserAccountsEtag(Long userId);
     Account updateAccountStatus(Long accountId, Account.AccountStatus status);
     void deleteAccount(Long accountId);
     AccountDto convertToDto(Account account);
@@ -0,0 +1,107 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.exception.AccountNotFoundException;
+import com.example.bankcards.repository.AccountBalanceShardRepository;
+import com.example.bankcards.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads credits to high fan-in accounts over {@code account_balance_shards} rows so concurrent
+ * credits do not all queue on the single {@code accounts.balance} row. The visible balance of a
+ * sharded account is its main balance plus the sum of its shards; a debit first drains the shards
+ * into the main balance while the account row is locked.
+ *
+ * <p>Sharding can only be enabled or widened, never removed, so a node that has not yet refreshed
+ * its view of sharded accounts merely locks the account as before and stays correct.
+ */
+@Service
+@Slf4j
+public class AccountShardService {
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceShardRepository shardRepository;
+    private final int maxShards;
+
+    private final Map<Long, Integer> shardedAccounts = new ConcurrentHashMap<>();
+
+    public AccountShardService(AccountRepository accountRepository,
+                               AccountBalanceShardRepository shardRepository,
+                               @Value("${app.balance-shards.max-shards:64}") int maxShards) {
+        this.accountRepository = accountRepository;
+        this.shardRepository = shardRepository;
+        this.maxShards = maxShards;
+    }
+
+    /**
+     * Whether credits to the account can skip its row lock. Answered from memory on the transfer path.
+     */
+    public boolean isSharded(Long accountId) {
+        return shardedAccounts.containsKey(accountId);
+    }
+
+    public void credit(Account account, BigDecimal amount) {
+        int shardNo = ThreadLocalRandom.current().nextInt(account.getBalanceShards());
+        shardRepository.credit(account.getId(), shardNo, amount);
+    }
+
+    /**
+     * Folds the shards into the main balance. The caller must hold the lock on the account row.
+     */
+    public void consolidate(Account account) {
+        if (account.getBalanceShards() == 0) {
+            return;
+        }
+        BigDecimal drained = shardRepository.drain(account.getId());
+        if (drained.signum() != 0) {
+            account.setBalance(account.getBalance().add(drained));
+            log.debug("Consolidated {} from balance shards of account {}", drained, account.getId());
+        }
+    }
+
+    public BigDecimal getVisibleBalance(Account account) {
+        if (account.getBalanceShards() == 0) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(shardRepository.sumBalance(account.getId()));
+    }
+
+    @Transactional
+    public Account enableSharding(Long accountId, int shards) {
+        Account account = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(String.valueOf(accountId)));
+
+        if (shards < account.getBalanceShards() || shards > maxShards) {
+            throw new IllegalArgumentException("Shard count must be between "
+                    + account.getBalanceShards() + " and " + maxShards);
+        }
+        if (shards > account.getBalanceShards()) {
+            shardRepository.createShards(accountId, account.getBalanceShards(), shards);
+            account.setBalanceShards(shards);
+            log.info("Account {} now spreads credits over {} balance shards", accountId, shards);
+        }
+
+        shardedAccounts.put(accountId, shards);
+        return account;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.balance-shards.refresh-interval-ms:60000}",
+            initialDelayString = "${app.balance-shards.refresh-interval-ms:60000}")
+    public void refresh() {
+        for (AccountRepository.ShardedAccount account : accountRepository.findByBalanceShardsGreaterThan(0)) {
+            shardedAccounts.put(account.getId(), account.getBalanceShards());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains PENDING transfers on a bounded worker pool. Freshly accepted transfers are handed over
+ * once their PENDING row has committed; anything the pool could not take (full queue, restart,
+ * crash) is picked up again by the periodic recovery sweep.
+ */
+@Service
+@Slf4j
+public class AsyncTransferWorker {
+
+    private final TransactionService transactionService;
+    private final TransactionRepository transactionRepository;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final long recoveryDelaySeconds;
+    private final int recoveryBatchSize;
+
+    public AsyncTransferWorker(TransactionService transactionService,
+                               TransactionRepository transactionRepository,
+                               @Value("${app.transfer.async.pool-size:8}") int poolSize,
+                               @Value("${app.transfer.async.queue-capacity:1000}") int queueCapacity,
+                               @Value("${app.transfer.async.recovery-delay-seconds:30}") long recoveryDelaySeconds,
+                               @Value("${app.transfer.async.recovery-batch-size:500}") int recoveryBatchSize) {
+        this.transactionService = transactionService;
+        this.transactionRepository = transactionRepository;
+        this.recoveryDelaySeconds = recoveryDelaySeconds;
+        this.recoveryBatchSize = recoveryBatchSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "transfer-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @TransactionalEventListener
+    public void onTransferAccepted(TransferAcceptedEvent event) {
+        submit(event.transactionId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.transfer.async.recovery-interval-ms:10000}")
+    public void recoverPendingTransfers() {
+        LocalDateTime createdBefore = LocalDateTime.now().minusSeconds(recoveryDelaySeconds);
+        transactionRepository.findPendingIdsCreatedBefore(createdBefore, PageRequest.of(0, recoveryBatchSize))
+                .forEach(this::submit);
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    private void submit(Long transactionId) {
+        if (!inFlight.add(transactionId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    transactionService.processPendingTransfer(transactionId);
+                } catch (Exception e) {
+                    log.error("Async transfer {} could not be processed: {}", transactionId, e.getMessage(), e);
+                } finally {
+                    inFlight.remove(transactionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(transactionId);
+            log.warn("Transfer queue is full, transaction {} left PENDING for recovery", transactionId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.HistoricalBalanceDto;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.exception.AccountNotFoundException;
+import com.example.bankcards.repository.AccountBalanceSnapshotRepository;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps the closing balance of every account per day it had ledger entries, so the balance at any
+ * point in time is the nearest earlier snapshot plus the entries since its day ended, at most a day of
+ * them once the nightly job has run.
+ *
+ * <p>The job is incremental: each run snapshots the closed days after the last one it wrote, one day
+ * at a time and only for accounts with entries that day, adding them to the previous snapshot. A day is
+ * closed once {@code app.ledger.settle-seconds} have passed after midnight, for the same reason
+ * ledger checkpoints wait that long.
+ */
+@Service
+@Slf4j
+public class BalanceSnapshotService {
+
+    private final AccountBalanceSnapshotRepository snapshotRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerService ledgerService;
+    private final AccountRepository accountRepository;
+    private final SecurityService securityService;
+    private final long settleSeconds;
+
+    public BalanceSnapshotService(AccountBalanceSnapshotRepository snapshotRepository,
+                                  LedgerEntryRepository ledgerEntryRepository,
+                                  LedgerService ledgerService,
+                                  AccountRepository accountRepository,
+                                  SecurityService securityService,
+                                  @Value("${app.ledger.settle-seconds:300}") long settleSeconds) {
+        this.snapshotRepository = snapshotRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.ledgerService = ledgerService;
+        this.accountRepository = accountRepository;
+        this.securityService = securityService;
+        this.settleSeconds = settleSeconds;
+    }
+
+    @Transactional(readOnly = true)
+    public HistoricalBalanceDto getBalanceAt(String accountNumber, LocalDateTime at) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        securityService.checkUserAccess(account.getUser().getId());
+        if (account.getCreatedAt() != null && at.isBefore(account.getCreatedAt())) {
+            throw new IllegalArgumentException("Account " + accountNumber + " did not exist at " + at);
+        }
+
+        return HistoricalBalanceDto.builder()
+                .accountNumber(accountNumber)
+                .at(at)
+                .balance(getBalanceAt(account.getId(), at))
+                .build();
+    }
+
+    BigDecimal getBalanceAt(Long accountId, LocalDateTime at) {
+        // No earlier snapshot: no entries on any snapshotted day, or at predates the first snapshot
+        return snapshotRepository.findLatestBefore(accountId, at.toLocalDate())
+                .map(snapshot -> snapshot.closingBalance().add(ledgerEntryRepository.sumByAccountIdCreatedFrom(
+                        accountId, snapshot.day().plusDays(1).atStartOfDay(), at)))
+                .orElseGet(() -> ledgerService.getLedgerBalanceAt(accountId, at));
+    }
+
+    @Transactional
+    @Scheduled(cron = "${app.balance-snapshots.cron:0 15 0 * * *}")
+    public void snapshotClosedDays() {
+        LocalDate lastClosedDay = LocalDateTime.now().minusSeconds(settleSeconds).toLocalDate().minusDays(1);
+        LocalDate day = snapshotRepository.findLastDay()
+                .map(lastDay -> lastDay.plusDays(1))
+                .orElse(lastClosedDay);
+
+        for (; !day.isAfter(lastClosedDay); day = day.plusDays(1)) {
+            int accounts = snapshotRepository.snapshotDay(day);
+            log.info("Wrote balance snapshots of {} accounts for {}", accounts, day);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.ConcurrentLongLongMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Card id to owning user id, so card access checks are answered from memory. Owners are read on first
+ * use with a single cards-accounts lookup and kept until the card is deleted. Card ids come from a
+ * sequence and are never reused, so an entry left behind by another node's delete names a card that no
+ * longer exists rather than someone else's card. Code that moves a card to another account, or an
+ * account to another user, must {@link #invalidate} the cards concerned.
+ *
+ * <p>Holds at most {@code app.card-ownership.max-entries} cards and starts over when full.
+ */
+@Service
+@Slf4j
+public class CardOwnershipIndex {
+
+    private static final long UNKNOWN = 0;
+
+    private final CardRepository cardRepository;
+    private final int maxEntries;
+    private final ConcurrentLongLongMap owners = new ConcurrentLongLongMap();
+
+    public CardOwnershipIndex(CardRepository cardRepository,
+                              @Value("${app.card-ownership.max-entries:1000000}") int maxEntries) {
+        this.cardRepository = cardRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    public long getOwnerId(Long cardId) {
+        long ownerId = owners.get(cardId, UNKNOWN);
+        if (ownerId != UNKNOWN) {
+            return ownerId;
+        }
+
+        ownerId = cardRepository.findOwnerIdById(cardId)
+                .orElseThrow(() -> new CardNotFoundException(cardId));
+        put(cardId, ownerId);
+        return ownerId;
+    }
+
+    public void put(Long cardId, Long ownerId) {
+        if (owners.size() >= maxEntries) {
+            log.info("Card ownership index reached {} entries, starting over", maxEntries);
+            owners.clear();
+        }
+        owners.put(cardId, ownerId);
+    }
+
+    public void invalidate(Long cardId) {
+        owners.remove(cardId);
+    }
+}
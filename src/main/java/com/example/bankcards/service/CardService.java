@@ -16,6 +16,8 @@ public interface CardService {
 
     Page<CardDto> getUserCardsPaginated(Long userId, Card.CardStatus status, Pageable pageable);
 
+    String getUserCardsEtag(Long userId);
+
     Page<CardDto> getAllCardsPaginated(Long userId, Card.CardStatus status, Pageable pageable);
 
     Card updateCardStatus(Long cardId, Card.CardStatus status);
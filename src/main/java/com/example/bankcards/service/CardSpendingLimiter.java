@@ -0,0 +1,168 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.TransferValidationException;
+import com.example.bankcards.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces {@link Card#getDailyLimit()} from per-card spent-today counters held in memory (in cents),
+ * so a limit check is a map lookup rather than a SUM over today's transactions.
+ *
+ * <p>A transfer reserves its amount while it holds the account lock: the check and the increment are
+ * one atomic step, so two transfers from the same card can never both pass against the same headroom,
+ * whichever path they come from. The reservation is given back if the transaction rolls back.
+ * The counters are loaded from {@code transactions} while the bean is initialised, before the web
+ * server takes requests, and dropped at midnight. Every {@code app.card-limits.reconcile-interval-ms}
+ * they are raised to what the database has committed, which picks up spending on other nodes; they
+ * are never lowered, since the difference may be reservations of transfers that have not committed yet.
+ */
+@Service
+@Slf4j
+public class CardSpendingLimiter {
+
+    private final TransactionRepository transactionRepository;
+    private final boolean enabled;
+
+    private volatile LocalDate day = LocalDate.now();
+    private volatile Map<Long, AtomicLong> spentToday = new ConcurrentHashMap<>();
+
+    public CardSpendingLimiter(TransactionRepository transactionRepository,
+                               @Value("${app.card-limits.enabled:true}") boolean enabled) {
+        this.transactionRepository = transactionRepository;
+        this.enabled = enabled;
+    }
+
+    public void reserve(Card card, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+
+        long cents = toCents(amount);
+        Map<Long, AtomicLong> counters = counters();
+        AtomicLong spent = counters.computeIfAbsent(card.getId(), id -> new AtomicLong());
+        if (card.getDailyLimit() == null) {
+            spent.addAndGet(cents);
+        } else {
+            long limit = toCents(card.getDailyLimit());
+            long current;
+            do {
+                current = spent.get();
+                if (current + cents > limit) {
+                    throw new TransferValidationException("Daily limit exceeded for card: spent "
+                            + fromCents(current) + " of " + card.getDailyLimit());
+                }
+            } while (!spent.compareAndSet(current, current + cents));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        // Released against the day it was taken from, even across midnight
+                        counters.computeIfPresent(card.getId(), (id, counter) -> {
+                            counter.addAndGet(-cents);
+                            return counter;
+                        });
+                    }
+                }
+            });
+        }
+    }
+
+    public BigDecimal getSpentToday(Long cardId) {
+        return fromCents(spentCents(cardId));
+    }
+
+    // Merged into the live counters rather than swapped in, so nothing reserved meanwhile is lost
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        int raised = raiseToCommitted();
+        log.info("Rebuilt daily spending counters for {} cards", raised);
+    }
+
+    @Scheduled(cron = "${app.card-limits.reset-cron:0 0 0 * * *}")
+    public void resetForNewDay() {
+        rollOver(LocalDate.now());
+    }
+
+    @Scheduled(fixedDelayString = "${app.card-limits.reconcile-interval-ms:60000}",
+            initialDelayString = "${app.card-limits.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        int corrected = raiseToCommitted();
+        if (corrected > 0) {
+            log.info("Reconciled daily spending counters, raised {} cards", corrected);
+        }
+    }
+
+    private int raiseToCommitted() {
+        Map<Long, AtomicLong> fromDatabase = loadSpending(LocalDate.now());
+        Map<Long, AtomicLong> current = counters();
+
+        int raised = 0;
+        for (Map.Entry<Long, AtomicLong> entry : fromDatabase.entrySet()) {
+            long committed = entry.getValue().get();
+            AtomicLong counter = current.computeIfAbsent(entry.getKey(), id -> new AtomicLong());
+            if (counter.getAndAccumulate(committed, Math::max) < committed) {
+                raised++;
+            }
+        }
+        return raised;
+    }
+
+    private Map<Long, AtomicLong> counters() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(day)) {
+            rollOver(today);
+        }
+        return spentToday;
+    }
+
+    private synchronized void rollOver(LocalDate today) {
+        if (!today.equals(day)) {
+            day = today;
+            spentToday = new ConcurrentHashMap<>();
+        }
+    }
+
+    private long spentCents(Long cardId) {
+        AtomicLong spent = counters().get(cardId);
+        return spent != null ? spent.get() : 0;
+    }
+
+    private Map<Long, AtomicLong> loadSpending(LocalDate today) {
+        Map<Long, AtomicLong> spending = new ConcurrentHashMap<>();
+        for (TransactionRepository.CardSpending row : transactionRepository.sumCardSpendingSince(today.atStartOfDay())) {
+            spending.put(row.getCardId(), new AtomicLong(toCents(row.getTotal())));
+        }
+        return spending;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.UP).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
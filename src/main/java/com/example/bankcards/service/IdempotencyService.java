@@ -0,0 +1,256 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.exception.TransferValidationException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes transfer endpoints safe to retry. Recent keys are answered from a bounded in-memory map that
+ * lookups read without a lock and that starts over once {@code app.idempotency.cache-size} is reached;
+ * everything else relies on the unique (user_id, idempotency_key) constraint, which is claimed in
+ * the same transaction as the transfer so that only one node can ever move the money. The transfer
+ * opens that transaction only once it holds its account locks, so no connection waits on them.
+ * A batch spans several transactions, so its key is claimed up front and the stored response is
+ * rewritten in the transaction of every chunk that commits.
+ *
+ * <p>Every key remembers a SHA-256 of the request it was first used with; the same key sent with a
+ * different request is rejected rather than answered with the response of the first one.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String BATCH_OPERATION = "BATCH";
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionService transactionService;
+    private final SecurityService securityService;
+    private final TransferExecutor transferExecutor;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CachedResponse> recentResponses = new ConcurrentHashMap<>();
+    private final int cacheSize;
+    private final long retentionHours;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              TransactionService transactionService,
+                              SecurityService securityService,
+                              TransferExecutor transferExecutor,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${app.idempotency.retention-hours:24}") long retentionHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionService = transactionService;
+        this.securityService = securityService;
+        this.transferExecutor = transferExecutor;
+        this.objectMapper = objectMapper;
+        this.cacheSize = cacheSize;
+        this.retentionHours = retentionHours;
+    }
+
+    public TransactionDto execute(String idempotencyKey, String operation, Object request,
+                                  Supplier<TransactionDto> transfer) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return transfer.get();
+        }
+        validateKey(idempotencyKey);
+
+        Long userId = securityService.getCurrentUserId();
+        String cacheKey = userId + ":" + operation + ":" + idempotencyKey;
+        String requestHash = fingerprint(request);
+
+        CachedResponse cached = recentResponses.get(cacheKey);
+        if (cached != null) {
+            checkSameRequest(cached.requestHash(), requestHash);
+            log.debug("Idempotent replay from cache for user {} key {}", userId, idempotencyKey);
+            return cached.response();
+        }
+
+        TransactionDto result;
+        try {
+            // The claim is written inside the transfer's own transaction, after the account locks are taken
+            result = transferExecutor.guarded(new TransferExecutor.TransferGuard() {
+                private IdempotencyKey claim;
+
+                @Override
+                public void beforeTransfer() {
+                    claim = idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                            .idempotencyKey(idempotencyKey)
+                            .userId(userId)
+                            .operation(operation)
+                            .requestHash(requestHash)
+                            .build());
+                }
+
+                @Override
+                public void afterTransfer(Object dto) {
+                    claim.setTransactionId(((TransactionDto) dto).getId());
+                }
+            }, transfer);
+        } catch (DataIntegrityViolationException e) {
+            result = replay(userId, idempotencyKey, operation, requestHash, e);
+        }
+
+        cache(cacheKey, new CachedResponse(requestHash, result));
+        return result;
+    }
+
+    public BatchTransferResponse executeBatch(String idempotencyKey, List<TransferRequest> transferRequests) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return transactionService.batchTransfer(transferRequests);
+        }
+        validateKey(idempotencyKey);
+
+        Long userId = securityService.getCurrentUserId();
+        String requestHash = fingerprint(transferRequests);
+        IdempotencyKey claim;
+        try {
+            claim = transferExecutor.execute(() -> idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                    .idempotencyKey(idempotencyKey)
+                    .userId(userId)
+                    .operation(BATCH_OPERATION)
+                    .requestHash(requestHash)
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            return replayBatch(userId, idempotencyKey, requestHash, e);
+        }
+
+        BatchTransferResponse response;
+        try {
+            response = transactionService.batchTransfer(transferRequests,
+                    progress -> idempotencyKeyRepository.updateResponse(claim.getId(), toJson(progress)));
+        } catch (RuntimeException e) {
+            // Chunk failures are reported per item, so nothing has been committed yet
+            transferExecutor.execute(() -> {
+                idempotencyKeyRepository.deleteById(claim.getId());
+                return null;
+            });
+            throw e;
+        }
+
+        String json = toJson(response);
+        transferExecutor.execute(() -> idempotencyKeyRepository.updateResponse(claim.getId(), json));
+        return response;
+    }
+
+    private BatchTransferResponse replayBatch(Long userId, String idempotencyKey, String requestHash,
+                                              DataIntegrityViolationException cause) {
+        IdempotencyKey existing = findClaim(userId, idempotencyKey).orElseThrow(() -> cause);
+
+        if (!existing.getOperation().equals(BATCH_OPERATION)) {
+            throw new TransferValidationException("Idempotency-Key has already been used for a different operation");
+        }
+        checkSameRequest(existing.getRequestHash(), requestHash);
+        if (existing.getResponse() == null) {
+            throw new TransferValidationException("A request with this Idempotency-Key is still being processed");
+        }
+
+        log.info("Idempotent batch replay from database for user {} key {}", userId, idempotencyKey);
+        try {
+            return objectMapper.readValue(existing.getResponse(), BatchTransferResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored batch response is unreadable", e);
+        }
+    }
+
+    // The claim was committed by a concurrent request moments ago; a read-write transaction keeps the
+    // lookup on the primary, where a lagging replica cannot hide it
+    private Optional<IdempotencyKey> findClaim(Long userId, String idempotencyKey) {
+        return transferExecutor.execute(() ->
+                idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey));
+    }
+
+    private String toJson(BatchTransferResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Batch response cannot be serialized", e);
+        }
+    }
+
+    // Keys stored before request hashes were recorded have none and are not checked
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (storedHash != null && !storedHash.equals(requestHash)) {
+            throw new TransferValidationException("Idempotency-Key has already been used for a different request");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Request cannot be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Threads that find the cache full at the same time may each clear it; that only costs database replays
+    private void cache(String cacheKey, CachedResponse response) {
+        if (cacheSize <= 0) {
+            return;
+        }
+        if (recentResponses.size() >= cacheSize) {
+            log.info("Idempotency response cache reached {} entries, starting over", cacheSize);
+            recentResponses.clear();
+        }
+        recentResponses.put(cacheKey, response);
+    }
+
+    private void validateKey(String idempotencyKey) {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new TransferValidationException("Idempotency-Key must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private TransactionDto replay(Long userId, String idempotencyKey, String operation, String requestHash,
+                                  DataIntegrityViolationException cause) {
+        IdempotencyKey existing = findClaim(userId, idempotencyKey).orElseThrow(() -> cause);
+
+        if (!existing.getOperation().equals(operation)) {
+            throw new TransferValidationException("Idempotency-Key has already been used for a different operation");
+        }
+        checkSameRequest(existing.getRequestHash(), requestHash);
+        if (existing.getTransactionId() == null) {
+            throw new TransferValidationException("A request with this Idempotency-Key is still being processed");
+        }
+
+        log.info("Idempotent replay from database for user {} key {}", userId, idempotencyKey);
+        return transactionService.getTransactionById(existing.getTransactionId());
+    }
+
+    @Scheduled(cron = "${app.idempotency.cleanup-cron:0 15 * * * *}")
+    @Transactional
+    public void purgeExpiredKeys() {
+        int removed = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (removed > 0) {
+            log.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private record CachedResponse(String requestHash, TransactionDto response) {
+    }
+}
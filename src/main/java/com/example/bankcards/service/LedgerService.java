@@ -0,0 +1,113 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.LedgerCheckpoint;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.repository.LedgerCheckpointRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes the append-only double-entry ledger and derives balances from it. {@code accounts.balance}
+ * (plus any balance shards) stays the value transfers check and update under the account lock; the
+ * ledger is the record it can be proven against.
+ *
+ * <p>A derived balance is the account's checkpoint plus the entries created after it. Checkpoints are
+ * rolled forward periodically, but only up to {@code settle-seconds} in the past: entry ids and
+ * timestamps are assigned before commit, so a window that is still open could miss a slow transaction.
+ */
+@Service
+@Slf4j
+public class LedgerService {
+
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerCheckpointRepository ledgerCheckpointRepository;
+    private final long settleSeconds;
+
+    public LedgerService(LedgerEntryRepository ledgerEntryRepository,
+                         LedgerCheckpointRepository ledgerCheckpointRepository,
+                         @Value("${app.ledger.settle-seconds:300}") long settleSeconds) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.ledgerCheckpointRepository = ledgerCheckpointRepository;
+        this.settleSeconds = settleSeconds;
+    }
+
+    /**
+     * Appends the debit and credit lines of a completed transfer. Must run in the transaction that
+     * completes it. Lines are stamped with the completion time, not the transfer's creation time:
+     * a PENDING transfer may complete after a checkpoint has already covered the moment it was created.
+     */
+    public void record(Transaction transaction) {
+        LocalDateTime postedAt = LocalDateTime.now();
+        ledgerEntryRepository.saveAll(List.of(
+                LedgerEntry.builder()
+                        .transactionId(transaction.getId())
+                        .accountId(transaction.getFromAccount().getId())
+                        .amount(transaction.getAmount().negate())
+                        .createdAt(postedAt)
+                        .build(),
+                LedgerEntry.builder()
+                        .transactionId(transaction.getId())
+                        .accountId(transaction.getToAccount().getId())
+                        .amount(transaction.getAmount())
+                        .createdAt(postedAt)
+                        .build()));
+    }
+
+    /**
+     * Starts the ledger of a new account at its opening balance.
+     */
+    public void openAccount(Account account) {
+        ledgerCheckpointRepository.save(LedgerCheckpoint.builder()
+                .accountId(account.getId())
+                .balance(account.getBalance())
+                .coveredUntil(account.getCreatedAt() != null ? account.getCreatedAt() : LocalDateTime.now())
+                .build());
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getLedgerBalance(Long accountId) {
+        return ledgerCheckpointRepository.findById(accountId)
+                .map(checkpoint -> checkpoint.getBalance().add(
+                        ledgerEntryRepository.sumByAccountIdCreatedAfter(accountId, checkpoint.getCoveredUntil())))
+                .orElseGet(() -> ledgerEntryRepository.sumByAccountId(accountId));
+    }
+
+    /**
+     * Ledger balance as of {@code at}, walked from the checkpoint in whichever direction {@code at} lies.
+     * Only cheap while {@code at} is close to the checkpoint; older points in time go through
+     * {@link BalanceSnapshotService}.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getLedgerBalanceAt(Long accountId, LocalDateTime at) {
+        return ledgerCheckpointRepository.findById(accountId)
+                .map(checkpoint -> at.isBefore(checkpoint.getCoveredUntil())
+                        ? checkpoint.getBalance().subtract(
+                                ledgerEntryRepository.sumByAccountIdCreatedBetween(accountId, at, checkpoint.getCoveredUntil()))
+                        : checkpoint.getBalance().add(
+                                ledgerEntryRepository.sumByAccountIdCreatedBetween(accountId, checkpoint.getCoveredUntil(), at)))
+                .orElseGet(() -> ledgerEntryRepository.sumByAccountIdCreatedBetween(accountId, LEDGER_START, at));
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.ledger.checkpoint-interval-ms:3600000}",
+            initialDelayString = "${app.ledger.checkpoint-interval-ms:3600000}")
+    public void advanceCheckpoints() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(settleSeconds);
+        int advanced = ledgerCheckpointRepository.advanceTo(cutoff);
+        if (advanced > 0) {
+            log.info("Advanced {} ledger checkpoints to {}", advanced, cutoff);
+        }
+    }
+}
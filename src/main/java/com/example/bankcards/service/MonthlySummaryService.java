@@ -0,0 +1,118 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.MonthlySummaryDto;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.repository.MonthlyAccountTotalsRepository;
+import com.example.bankcards.repository.MonthlyAccountTotalsRepository.Increment;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Monthly inflow and outflow per account and currency. Every completed transfer adds to the totals of
+ * both its accounts in the transaction that completes it, so the summary is a single-row read per
+ * account instead of a sum over the month's transactions. Credits to an account with balance shards
+ * go to a random one of as many totals rows, which are summed on read, so they take no lock on the
+ * account and do not queue on a single row either.
+ *
+ * <p>Increments can only drift if a transaction is changed outside the transfer paths; a month is
+ * repaired by recounting it from {@code transactions}, which is also done for the previous month once
+ * it has closed. The recount only corrects the accounts that drifted and runs alongside transfers.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MonthlySummaryService {
+
+    private static final Comparator<Increment> LOCK_ORDER = Comparator
+            .comparing(Increment::accountId)
+            .thenComparing(Increment::month)
+            .thenComparing(Increment::currency)
+            .thenComparingInt(Increment::shardNo);
+
+    private final MonthlyAccountTotalsRepository totalsRepository;
+    private final SecurityService securityService;
+
+    /**
+     * Adds a completed transfer to the totals of its accounts. Must run in the transaction that
+     * completes it.
+     */
+    public void record(Transaction transaction) {
+        recordAll(List.of(transaction));
+    }
+
+    /**
+     * Adds completed transfers, writing each account's row once however many of them touch it.
+     */
+    public void recordAll(List<Transaction> transactions) {
+        Map<List<Object>, Increment> increments = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            LocalDate month = transaction.getCreatedAt().toLocalDate().withDayOfMonth(1);
+            if (transaction.getFromAccount() != null) {
+                add(increments, new Increment(transaction.getFromAccount().getId(), month,
+                        transaction.getCurrency(), 0, BigDecimal.ZERO, transaction.getAmount(), 1));
+            }
+            if (transaction.getToAccount() != null) {
+                add(increments, new Increment(transaction.getToAccount().getId(), month,
+                        transaction.getCurrency(), creditShard(transaction.getToAccount()),
+                        transaction.getAmount(), BigDecimal.ZERO, 1));
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        // Rows are written in key order, so two batches touching the same rows cannot deadlock
+        List<Increment> rows = new ArrayList<>(increments.values());
+        rows.sort(LOCK_ORDER);
+        totalsRepository.incrementAll(rows);
+    }
+
+    // Shards are never removed, so a shard count read without the account lock is always in range
+    private int creditShard(Account account) {
+        return account.getBalanceShards() > 0 ? ThreadLocalRandom.current().nextInt(account.getBalanceShards()) : 0;
+    }
+
+    private void add(Map<List<Object>, Increment> increments, Increment increment) {
+        increments.merge(List.of(increment.accountId(), increment.month(), increment.currency(), increment.shardNo()),
+                increment,
+                (a, b) -> new Increment(a.accountId(), a.month(), a.currency(), a.shardNo(),
+                        a.inflow().add(b.inflow()), a.outflow().add(b.outflow()),
+                        a.transactionCount() + b.transactionCount()));
+    }
+
+    @Transactional(readOnly = true)
+    public MonthlySummaryDto getSummary(YearMonth month) {
+        Long userId = securityService.getCurrentUserId();
+        return MonthlySummaryDto.builder()
+                .month(month)
+                .accounts(totalsRepository.findByUserIdAndMonth(userId, month.atDay(1)))
+                .build();
+    }
+
+    @Transactional
+    public int recomputeMonth(YearMonth month) {
+        int rows = totalsRepository.recomputeMonth(month.atDay(1));
+        log.info("Recomputed monthly totals for {}, corrected {} accounts", month, rows);
+        return rows;
+    }
+
+    @Transactional
+    @Scheduled(cron = "${app.monthly-summary.recompute-cron:0 30 0 2 * *}")
+    public void recomputePreviousMonth() {
+        recomputeMonth(YearMonth.now().minusMonths(1));
+    }
+}
@@ -1,48 +1,42 @@
 package com.example.bankcards.service;
 
-import com.example.bankcards.entity.Card;
-import com.example.bankcards.exception.CardNotFoundException;
-import com.example.bankcards.repository.CardRepository;
-import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CurrentUserContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SecurityService {
-    private final CardRepository cardRepository;
-    private final UserRepository userRepository;
+    private final CardOwnershipIndex cardOwnershipIndex;
+    private final CurrentUserContext currentUserContext;
 
     public void checkCardAccess(Long cardId) {
-        String currentUsername = getCurrentUsername();
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardNotFoundException(cardId));
+        CurrentUserContext.CurrentUser currentUser = currentUserContext.get();
+        long ownerId = cardOwnershipIndex.getOwnerId(cardId);
 
-        if (!hasAdminRole() && !card.getAccount().getUser().getUsername().equals(currentUsername)) {
-            log.warn("Access denied: User {} tried to access card {}", currentUsername, cardId);
+        if (!currentUser.isAdmin() && (currentUser.id() == null || ownerId != currentUser.id())) {
+            log.warn("Access denied: User {} tried to access card {}", currentUser.username(), cardId);
             throw new AccessDeniedException("No access to this card");
         }
     }
 
     public Long getCurrentUserId() {
-        String username = getCurrentUsername();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username))
-                .getId();
+        CurrentUserContext.CurrentUser currentUser = currentUserContext.get();
+        if (currentUser.id() == null) {
+            throw new RuntimeException("User not found: " + currentUser.username());
+        }
+        return currentUser.id();
     }
 
     public String getCurrentUsername() {
-        return SecurityContextHolder.getContext().getAuthentication().getName();
+        return currentUserContext.get().username();
     }
 
     public boolean hasAdminRole() {
-        return SecurityContextHolder.getContext().getAuthentication()
-                .getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        return currentUserContext.get().isAdmin();
     }
 
     public boolean isCurrentUser(Long userId) {
@@ -0,0 +1,104 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserDeletion;
+import com.example.bankcards.repository.UserDeletionRepository;
+import com.example.bankcards.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory view of the users whose tokens can no longer be trusted on their own, for claims-based
+ * authentication ({@code app.jwt.claims-auth.enabled}). Users that are not {@code ACTIVE}, and users
+ * deleted within the last token lifetime, are revoked outright; a token issued before its user was last
+ * updated is stale, since the roles it carries may be outdated, and is authenticated against the
+ * database instead.
+ *
+ * <p>Both sets are reloaded every {@code app.jwt.claims-auth.refresh-interval-ms}, so a block takes
+ * effect on this node within that interval rather than immediately.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private final UserRepository userRepository;
+    private final UserDeletionRepository userDeletionRepository;
+    private final boolean enabled;
+    private final long tokenLifetimeMs;
+
+    private volatile Set<Long> revokedUserIds = Set.of();
+    private volatile Map<Long, Instant> updatedAt = Map.of();
+
+    public TokenRevocationService(UserRepository userRepository,
+                                  UserDeletionRepository userDeletionRepository,
+                                  @Value("${app.jwt.claims-auth.enabled:false}") boolean enabled,
+                                  @Value("${app.jwt.expiration}") long tokenLifetimeMs) {
+        this.userRepository = userRepository;
+        this.userDeletionRepository = userDeletionRepository;
+        this.enabled = enabled;
+        this.tokenLifetimeMs = tokenLifetimeMs;
+    }
+
+    /**
+     * Whether requests are authenticated from the token claims rather than by loading the user.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isRevoked(Long userId) {
+        return revokedUserIds.contains(userId);
+    }
+
+    public boolean isStale(Long userId, Date issuedAt) {
+        Instant changed = updatedAt.get(userId);
+        return changed != null && (issuedAt == null || issuedAt.toInstant().isBefore(changed));
+    }
+
+    /**
+     * Records a deleted user, so its tokens are revoked on every node at the next refresh. Must run in
+     * the transaction that deletes the user; also drops deletions older than a token lifetime.
+     */
+    public void recordDeletion(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        userDeletionRepository.deleteDeletedBefore(now.minusNanos(tokenLifetimeMs * 1_000_000));
+        userDeletionRepository.save(UserDeletion.builder().userId(userId).deletedAt(now).build());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.jwt.claims-auth.refresh-interval-ms:30000}",
+            initialDelayString = "${app.jwt.claims-auth.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        // Tokens issued before the window have expired, so older updates cannot make one stale
+        LocalDateTime since = LocalDateTime.now().minusNanos(tokenLifetimeMs * 1_000_000);
+
+        Map<Long, Instant> updated = new HashMap<>();
+        for (UserRepository.UpdatedUser user : userRepository.findByUpdatedAtAfter(since)) {
+            updated.put(user.getId(), user.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant());
+        }
+
+        Set<Long> revoked = new HashSet<>(userRepository.findIdsByStatusNot(User.UserStatus.ACTIVE));
+        revoked.addAll(userDeletionRepository.findUserIdsDeletedAfter(since));
+
+        revokedUserIds = Set.copyOf(revoked);
+        updatedAt = updated;
+        log.debug("Token revocation list refreshed: {} revoked, {} recently updated users",
+                revokedUserIds.size(), updatedAt.size());
+    }
+}
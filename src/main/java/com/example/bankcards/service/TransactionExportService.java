@@ -0,0 +1,226 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.exception.AccountNotFoundException;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes the full history of an account as NDJSON or CSV while reading it. Outgoing and incoming
+ * transfers are read as two database cursors in index order and merged here, so the first rows go
+ * out immediately and memory stays flat: the persistence context is cleared every
+ * {@link #CLEAR_EVERY} rows and only counterparty account numbers are remembered.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionExportService {
+
+    private static final int CLEAR_EVERY = 1000;
+
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final String CSV_HEADER = "id,transactionId,createdAt,type,status,amount,currency,"
+            + "fromAccountNumber,toAccountNumber,description\n";
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private static final Comparator<Transaction> HISTORY_ORDER =
+            Comparator.comparing(Transaction::getCreatedAt).thenComparing(Transaction::getId);
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final SecurityService securityService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Resolves the account and checks access. Runs on the request thread, before the response is
+     * committed, so a refusal still becomes a normal error response.
+     */
+    public Account resolveAccount(String accountNumber) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        securityService.checkUserAccess(account.getUser().getId());
+        return account;
+    }
+
+    @Transactional(readOnly = true)
+    public void export(Long accountId, String accountNumber, LocalDateTime since, LocalDateTime until,
+                       Format format, OutputStream out) throws IOException {
+        Map<Long, String> accountNumbers = new HashMap<>();
+        accountNumbers.put(accountId, accountNumber);
+
+        LocalDateTime from = since != null ? since : HISTORY_START;
+        LocalDateTime to = until != null ? until : HISTORY_END;
+
+        long rows = 0;
+        try (Stream<Transaction> outgoing = transactionRepository.streamOutgoing(accountId, from, to);
+             Stream<Transaction> incoming = transactionRepository.streamIncoming(accountId, from, to)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+            }
+
+            Iterator<Transaction> merged = merge(outgoing.iterator(), incoming.iterator());
+            while (merged.hasNext()) {
+                TransactionDto dto = toDto(merged.next(), accountNumbers);
+                if (format == Format.CSV) {
+                    writeCsv(writer, dto);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+                if (++rows % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                }
+            }
+            writer.flush();
+        }
+        log.info("Exported {} transactions of account {} as {}", rows, accountNumber, format);
+    }
+
+    private Iterator<Transaction> merge(Iterator<Transaction> left, Iterator<Transaction> right) {
+        return new Iterator<>() {
+            private Transaction nextLeft = left.hasNext() ? left.next() : null;
+            private Transaction nextRight = right.hasNext() ? right.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextLeft != null || nextRight != null;
+            }
+
+            @Override
+            public Transaction next() {
+                Transaction result;
+                if (nextRight == null || (nextLeft != null && HISTORY_ORDER.compare(nextLeft, nextRight) <= 0)) {
+                    result = nextLeft;
+                    nextLeft = left.hasNext() ? left.next() : null;
+                } else {
+                    result = nextRight;
+                    nextRight = right.hasNext() ? right.next() : null;
+                }
+                return result;
+            }
+        };
+    }
+
+    // Reads only foreign keys of the account associations, so no account row is loaded per transaction
+    private TransactionDto toDto(Transaction transaction, Map<Long, String> accountNumbers) {
+        TransactionDto dto = new TransactionDto();
+        dto.setId(transaction.getId());
+        dto.setTransactionId(transaction.getTransactionId());
+        dto.setAmount(transaction.getAmount());
+        dto.setCurrency(transaction.getCurrency());
+        dto.setType(transaction.getType());
+        dto.setStatus(transaction.getStatus());
+        dto.setDescription(transaction.getDescription());
+        dto.setCreatedAt(transaction.getCreatedAt());
+        dto.setFailureReason(transaction.getFailureReason());
+        if (transaction.getFromAccount() != null) {
+            Long id = transaction.getFromAccount().getId();
+            dto.setFromAccountId(id);
+            dto.setFromAccountNumber(accountNumber(id, accountNumbers));
+        }
+        if (transaction.getToAccount() != null) {
+            Long id = transaction.getToAccount().getId();
+            dto.setToAccountId(id);
+            dto.setToAccountNumber(accountNumber(id, accountNumbers));
+        }
+        return dto;
+    }
+
+    private String accountNumber(Long accountId, Map<Long, String> accountNumbers) {
+        return accountNumbers.computeIfAbsent(accountId,
+                id -> accountRepository.findAccountNumberById(id).orElse(null));
+    }
+
+    private void writeCsv(Writer writer, TransactionDto dto) throws IOException {
+        writer.write(String.valueOf(dto.getId()));
+        writer.write(',');
+        writer.write(dto.getTransactionId());
+        writer.write(',');
+        writer.write(String.valueOf(dto.getCreatedAt()));
+        writer.write(',');
+        writer.write(dto.getType().name());
+        writer.write(',');
+        writer.write(dto.getStatus().name());
+        writer.write(',');
+        writer.write(dto.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(dto.getCurrency());
+        writer.write(',');
+        writer.write(csvField(dto.getFromAccountNumber()));
+        writer.write(',');
+        writer.write(csvField(dto.getToAccountNumber()));
+        writer.write(',');
+        writer.write(csvField(dto.getDescription()));
+        writer.write('\n');
+    }
+
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            // Spreadsheets would evaluate it as a formula (CSV injection); a leading quote keeps it text
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+}
@@ -1,21 +1,33 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferResponse;
 import com.example.bankcards.dto.CardToAccountTransferRequest;
 import com.example.bankcards.dto.CardToCardTransferRequest;
 import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransactionPageResponse;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.Transaction;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransactionService {
     TransactionDto transfer(TransferRequest transferRequest);
+    BatchTransferResponse batchTransfer(List<TransferRequest> transferRequests);
+    BatchTransferResponse batchTransfer(List<TransferRequest> transferRequests,
+                                        Consumer<BatchTransferResponse> chunkCommitListener);
     TransactionDto getTransactionById(Long id);
-    List<TransactionDto> getUserTransactions(Long userId);
-    List<TransactionDto> getAccountTransactions(String accountNumber);
-    List<TransactionDto> getTransactionsByDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate);
+    TransactionPageResponse getUserTransactions(Long userId, String cursor, int limit);
+    TransactionPageResponse getAccountTransactions(String accountNumber, String cursor, int limit);
+    TransactionPageResponse getTransactionsByDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                                       String cursor, int limit);
     TransactionDto convertToDto(Transaction transaction);
     TransactionDto cardToCardTransfer(CardToCardTransferRequest request);
     TransactionDto cardToAccountTransfer(CardToAccountTransferRequest request);
+    TransactionDto submitTransfer(TransferRequest transferRequest);
+    TransactionDto submitCardToCardTransfer(CardToCardTransferRequest request);
+    TransactionDto submitCardToAccountTransfer(CardToAccountTransferRequest request);
+    void processPendingTransfer(Long id);
+    TransactionDto getTransactionStatus(String transactionId);
 }
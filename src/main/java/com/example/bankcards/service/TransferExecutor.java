@@ -0,0 +1,101 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.TransferValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a transfer in its own transaction and replays it when the database reports
+ * a deadlock, lock timeout or serialization failure. Backoff doubles per attempt
+ * and is capped; each sleep is jittered so that colliding transfers do not retry in lockstep.
+ * A {@link TransferGuard} bound with {@link #guarded} joins the first transaction opened on the
+ * calling thread, so callers outside the account locks can still write in the transfer's transaction.
+ */
+@Service
+@Slf4j
+public class TransferExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final ThreadLocal<TransferGuard> pendingGuard = new ThreadLocal<>();
+
+    public TransferExecutor(PlatformTransactionManager transactionManager,
+                            @Value("${app.transfer.retry.max-attempts:5}") int maxAttempts,
+                            @Value("${app.transfer.retry.initial-backoff-ms:20}") long initialBackoffMs,
+                            @Value("${app.transfer.retry.max-backoff-ms:500}") long maxBackoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // A surrounding transaction owns commit and rollback, so a replay here could not start clean.
+            return work.get();
+        }
+
+        TransferGuard guard = pendingGuard.get();
+        pendingGuard.remove();
+
+        long backoff = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> guard == null ? work.get() : runGuarded(guard, work));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Transfer aborted after {} attempts: {}", attempt, e.getMessage());
+                    throw new TransferValidationException(
+                            "Transfer failed due to concurrent updates, please retry later");
+                }
+                log.warn("Transfer attempt {} hit lock conflict, retrying: {}", attempt, e.getMessage());
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    public <T> T guarded(TransferGuard guard, Supplier<T> caller) {
+        pendingGuard.set(guard);
+        try {
+            return caller.get();
+        } finally {
+            pendingGuard.remove();
+        }
+    }
+
+    private static <T> T runGuarded(TransferGuard guard, Supplier<T> work) {
+        guard.beforeTransfer();
+        T result = work.get();
+        guard.afterTransfer(result);
+        return result;
+    }
+
+    private void sleep(long backoff) {
+        try {
+            Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferValidationException("Transfer interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * Work that has to commit or roll back together with the transfer it guards.
+     */
+    public interface TransferGuard {
+        void beforeTransfer();
+
+        void afterTransfer(Object result);
+    }
+}
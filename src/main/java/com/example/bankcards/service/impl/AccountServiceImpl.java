@@ -5,6 +5,8 @@ import com.example.bankcards.entity.Account;
 import com.example.bankcards.repository.AccountRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.AccountService;
+import com.example.bankcards.service.AccountShardService;
+import com.example.bankcards.service.LedgerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,6 +23,8 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final AccountShardService accountShardService;
+    private final LedgerService ledgerService;
 
     @Override
     @Transactional
@@ -30,6 +34,7 @@ public class AccountServiceImpl implements AccountService {
             account.setAccountNumber(accountNumber);
 
             Account savedAccount = accountRepository.save(account);
+            ledgerService.openAccount(savedAccount);
             log.info("Created account: {} for user: {}", accountNumber, account.getUser().getId());
             return savedAccount;
         } catch (Exception e) {
@@ -63,6 +68,15 @@ public class AccountServiceImpl implements AccountService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Changes whenever anything {@link #getUserAccounts} returns does, at the cost of one aggregate query.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getUserAccountsEtag(Long userId) {
+        return "\"" + accountRepository.findListingVersionByUserId(userId).fingerprint() + "\"";
+    }
+
     @Override
     @Transactional
     public Account updateAccountStatus(Long accountId, Account.AccountStatus status) {
@@ -81,7 +95,7 @@ public class AccountServiceImpl implements AccountService {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new RuntimeException("Account not found with id: " + accountId));
 
-        if (account.getBalance().compareTo(java.math.BigDecimal.ZERO) > 0) {
+        if (accountShardService.getVisibleBalance(account).compareTo(java.math.BigDecimal.ZERO) > 0) {
             throw new RuntimeException("Cannot delete account with positive balance");
         }
 
@@ -94,13 +108,14 @@ public class AccountServiceImpl implements AccountService {
         AccountDto dto = new AccountDto();
         dto.setId(account.getId());
         dto.setAccountNumber(account.getAccountNumber());
-        dto.setBalance(account.getBalance());
+        dto.setBalance(accountShardService.getVisibleBalance(account));
         dto.setCurrency(account.getCurrency());
         dto.setType(account.getType());
         dto.setStatus(account.getStatus());
         dto.setCreatedAt(account.getCreatedAt());
         dto.setUserId(account.getUser().getId());
         dto.setUserFullName(account.getUser().getFirstName() + " " + account.getUser().getLastName());
+        dto.setBalanceShards(account.getBalanceShards());
         return dto;
     }
 
@@ -6,6 +6,8 @@ import com.example.bankcards.entity.Card;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.repository.AccountRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.AccountShardService;
+import com.example.bankcards.service.CardOwnershipIndex;
 import com.example.bankcards.service.CardService;
 import com.example.bankcards.service.EncryptionService;
 import com.example.bankcards.service.SecurityService;
@@ -32,6 +34,8 @@ public class CardServiceImpl implements CardService {
     private final AccountRepository accountRepository;
     private final SecurityService securityService;
     private final EncryptionService encryptionService;
+    private final AccountShardService accountShardService;
+    private final CardOwnershipIndex cardOwnershipIndex;
 
     @PostConstruct
     public void init() {
@@ -61,6 +65,7 @@ public class CardServiceImpl implements CardService {
             card.setExpiryDate(LocalDate.now().plusYears(3));
 
             Card savedCard = cardRepository.save(card);
+            cardOwnershipIndex.put(savedCard.getId(), account.getUser().getId());
             log.info("Created card: {} for account: {}", maskCardNumber(cardNumber), account.getId());
             return savedCard;
         } catch (Exception e) {
@@ -112,6 +117,18 @@ public class CardServiceImpl implements CardService {
         return cards.map(this::convertToDto);
     }
 
+    /**
+     * Covers the cards of the user and the accounts whose balance they show.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getUserCardsEtag(Long userId) {
+        securityService.checkUserAccess(userId);
+        CardRepository.ListingVersion cards = cardRepository.findListingVersionByUserId(userId);
+        return "\"" + cards.getCount() + "-" + cards.getVersions() + "-"
+                + accountRepository.findListingVersionByUserId(userId).fingerprint() + "\"";
+    }
+
     @Override
     public Page<CardDto> getAllCardsPaginated(Long userId, Card.CardStatus status, Pageable pageable) {
         securityService.checkAdminAccess();
@@ -156,6 +173,7 @@ public class CardServiceImpl implements CardService {
                 .orElseThrow(() -> new RuntimeException("Card not found with id: " + cardId));
 
         cardRepository.delete(card);
+        cardOwnershipIndex.invalidate(cardId);
         log.info("Deleted card: {}", cardId);
     }
 
@@ -172,7 +190,7 @@ public class CardServiceImpl implements CardService {
         dto.setCreatedAt(card.getCreatedAt());
         dto.setAccountId(card.getAccount().getId());
         dto.setAccountNumber(card.getAccount().getAccountNumber());
-        dto.setBalance(card.getAccount().getBalance());
+        dto.setBalance(accountShardService.getVisibleBalance(card.getAccount()));
         return dto;
     }
 
@@ -1,8 +1,11 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.BatchTransferItemResult;
+import com.example.bankcards.dto.BatchTransferResponse;
 import com.example.bankcards.dto.CardToAccountTransferRequest;
 import com.example.bankcards.dto.CardToCardTransferRequest;
 import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransactionPageResponse;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.entity.Card;
@@ -13,17 +16,38 @@ import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.TransferValidationException;
 import com.example.bankcards.repository.AccountRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionBatchRepository;
 import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.TransferProcedureRepository;
+import com.example.bankcards.service.AccountLockManager;
+import com.example.bankcards.service.AccountShardService;
+import com.example.bankcards.service.CardSpendingLimiter;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.MonthlySummaryService;
 import com.example.bankcards.service.SecurityService;
 import com.example.bankcards.service.TransactionService;
+import com.example.bankcards.service.TransferAcceptedEvent;
+import com.example.bankcards.service.TransferExecutor;
+import com.example.bankcards.util.TransactionCursor;
+import com.example.bankcards.util.TransactionIdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,30 +55,122 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TransactionServiceImpl implements TransactionService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String NOT_PROCESSED_MESSAGE = "Not processed";
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
     private final SecurityService securityService;
     private final CardRepository cardRepository;
+    private final TransferExecutor transferExecutor;
+    private final AccountLockManager accountLockManager;
+    private final TransferProcedureRepository transferProcedureRepository;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final CardSpendingLimiter cardSpendingLimiter;
+    private final AccountShardService accountShardService;
+    private final LedgerService ledgerService;
+    private final MonthlySummaryService monthlySummaryService;
+
+    @Value("${app.transfer.mode:JPA}")
+    private TransferMode transferMode = TransferMode.JPA;
+
+    @Value("${app.transfer.batch.chunk-size:500}")
+    private int batchChunkSize = 500;
 
     @Override
-    @Transactional
     public TransactionDto transfer(TransferRequest transferRequest) {
+        if (transferMode == TransferMode.PROCEDURE) {
+            return transferExecutor.execute(() -> doProcedureTransfer(transferRequest));
+        }
+        Long fromAccountId = accountRepository.findIdByAccountNumber(transferRequest.getFromAccountNumber())
+                .orElseThrow(() -> new AccountNotFoundException(transferRequest.getFromAccountNumber()));
+
+        Long toAccountId = accountRepository.findIdByAccountNumber(transferRequest.getToAccountNumber())
+                .orElseThrow(() -> new AccountNotFoundException(transferRequest.getToAccountNumber()));
+
+        return executeLocked(fromAccountId, toAccountId,
+                () -> doTransfer(transferRequest, fromAccountId, toAccountId));
+    }
+
+    private TransactionDto doProcedureTransfer(TransferRequest transferRequest) {
+        Long currentUserId = securityService.getCurrentUserId();
+        String description = transferRequest.getDescription() != null ?
+                transferRequest.getDescription() : "Transfer to " + transferRequest.getToAccountNumber();
+        String transactionId = transactionIdGenerator.nextTransactionId();
+
+        TransferProcedureRepository.TransferResult result = transferProcedureRepository.transfer(
+                transferRequest.getFromAccountNumber(),
+                transferRequest.getToAccountNumber(),
+                transferRequest.getAmount(),
+                description,
+                transactionId,
+                currentUserId);
+
+        if (!result.isCompleted()) {
+            log.error("Transfer failed for user {}: {}", currentUserId, result.status());
+            throw toTransferException(result, transferRequest);
+        }
+
+        log.info("Transfer completed: {} {} from {} to {} for user {}",
+                transferRequest.getAmount(),
+                result.currency(),
+                transferRequest.getFromAccountNumber(),
+                transferRequest.getToAccountNumber(),
+                currentUserId);
+
+        TransactionDto dto = new TransactionDto();
+        dto.setId(result.id());
+        dto.setTransactionId(transactionId);
+        dto.setAmount(transferRequest.getAmount());
+        dto.setCurrency(result.currency());
+        dto.setType(Transaction.TransactionType.TRANSFER);
+        dto.setStatus(Transaction.TransactionStatus.COMPLETED);
+        dto.setDescription(description);
+        dto.setCreatedAt(result.createdAt());
+        dto.setFromAccountId(result.fromAccountId());
+        dto.setFromAccountNumber(transferRequest.getFromAccountNumber());
+        dto.setToAccountId(result.toAccountId());
+        dto.setToAccountNumber(transferRequest.getToAccountNumber());
+        return dto;
+    }
+
+    private RuntimeException toTransferException(TransferProcedureRepository.TransferResult result,
+                                                 TransferRequest transferRequest) {
+        return switch (result.status()) {
+            case "FROM_NOT_FOUND" -> new AccountNotFoundException(transferRequest.getFromAccountNumber());
+            case "TO_NOT_FOUND" -> new AccountNotFoundException(transferRequest.getToAccountNumber());
+            case "FROM_NOT_OWNED" -> new CardNotFoundException("From account does not belong to current user");
+            case "TO_NOT_OWNED" -> new CardNotFoundException("To account does not belong to current user");
+            case "FROM_INACTIVE" -> new CardNotFoundException("From account is not active");
+            case "TO_INACTIVE" -> new CardNotFoundException("To account is not active");
+            case "NO_CARDS" -> new CardNotFoundException("From account has no cards");
+            case "NO_ACTIVE_CARDS" -> new CardNotFoundException("No active cards for from account");
+            case "CURRENCY_MISMATCH" -> new TransferValidationException("Currency mismatch between accounts");
+            case "INSUFFICIENT_FUNDS" -> new InsufficientFundsException(result.fromBalance(), transferRequest.getAmount());
+            case "SAME_ACCOUNT" -> new TransferValidationException("Cannot transfer to the same account");
+            case "INVALID_AMOUNT" -> new RuntimeException("Amount must be positive");
+            default -> new TransferValidationException("Transfer failed: " + result.status());
+        };
+    }
+
+    private TransactionDto doTransfer(TransferRequest transferRequest, Long fromAccountId, Long toAccountId) {
         Long currentUserId = null;
 
         try {
             currentUserId = securityService.getCurrentUserId();
 
-            Account fromAccount = accountRepository.findByAccountNumber(transferRequest.getFromAccountNumber())
-                    .orElseThrow(() -> new AccountNotFoundException(transferRequest.getFromAccountNumber()));
-
-            Account toAccount = accountRepository.findByAccountNumber(transferRequest.getToAccountNumber())
-                    .orElseThrow(() -> new AccountNotFoundException(transferRequest.getToAccountNumber()));
+            LockedAccounts locked = lockAccounts(fromAccountId, toAccountId);
+            Account fromAccount = locked.from();
+            Account toAccount = locked.to();
 
             validateCardOwnership(fromAccount, toAccount, currentUserId);
             validateTransfer(fromAccount, toAccount, transferRequest.getAmount());
 
             fromAccount.setBalance(fromAccount.getBalance().subtract(transferRequest.getAmount()));
-            toAccount.setBalance(toAccount.getBalance().add(transferRequest.getAmount()));
+            credit(toAccount, transferRequest.getAmount());
 
             accountRepository.save(fromAccount);
             accountRepository.save(toAccount);
@@ -71,6 +187,8 @@ public class TransactionServiceImpl implements TransactionService {
                     .build();
 
             Transaction savedTransaction = transactionRepository.save(transaction);
+            ledgerService.record(savedTransaction);
+            monthlySummaryService.record(savedTransaction);
 
             log.info("Transfer completed: {} {} from {} to {} for user {}",
                     transferRequest.getAmount(),
@@ -84,6 +202,8 @@ public class TransactionServiceImpl implements TransactionService {
         } catch (AccountNotFoundException | InsufficientFundsException | TransferValidationException e) {
             log.error("Transfer failed for user {}: {}", currentUserId, e.getMessage());
             throw e;
+        } catch (ConcurrencyFailureException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Transfer failed for user {}: {}", currentUserId, e.getMessage());
             throw new TransferValidationException("Transfer failed: " + e.getMessage());
@@ -91,6 +211,345 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
+    public BatchTransferResponse batchTransfer(List<TransferRequest> transferRequests) {
+        return batchTransfer(transferRequests, response -> { });
+    }
+
+    /*
+     * Chunks commit one by one, so a failing chunk must not throw away the results of the chunks
+     * before it: its items are reported as FAILED with the cause and every later item as not
+     * processed, and the batch stops there. The listener runs inside each chunk's transaction with
+     * the response as it would look if the batch stopped right after that chunk, which lets the
+     * caller persist progress atomically with the money it describes.
+     */
+    @Override
+    public BatchTransferResponse batchTransfer(List<TransferRequest> transferRequests,
+                                               Consumer<BatchTransferResponse> chunkCommitListener) {
+        Long currentUserId = securityService.getCurrentUserId();
+        boolean admin = securityService.hasAdminRole();
+
+        List<BatchTransferItemResult> results = new ArrayList<>(transferRequests.size());
+        for (int start = 0; start < transferRequests.size(); start += batchChunkSize) {
+            int offset = start;
+            List<TransferRequest> chunk = transferRequests.subList(start,
+                    Math.min(start + batchChunkSize, transferRequests.size()));
+            try {
+                results.addAll(transferExecutor.execute(() -> {
+                    List<BatchTransferItemResult> chunkResults = processBatchChunk(chunk, offset, currentUserId, admin);
+                    List<BatchTransferItemResult> processed = new ArrayList<>(results);
+                    processed.addAll(chunkResults);
+                    chunkCommitListener.accept(withUnprocessed(processed, transferRequests.size()));
+                    return chunkResults;
+                }));
+            } catch (RuntimeException e) {
+                log.error("Batch transfer chunk at offset {} failed for user {}: {}",
+                        offset, currentUserId, e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(BatchTransferItemResult.builder()
+                            .index(offset + i)
+                            .status(Transaction.TransactionStatus.FAILED)
+                            .message("Chunk failed: " + e.getMessage())
+                            .build());
+                }
+                break;
+            }
+        }
+
+        BatchTransferResponse response = withUnprocessed(results, transferRequests.size());
+        log.info("Batch transfer finished for user {}: {} completed, {} failed",
+                currentUserId, response.getCompleted(), response.getFailed());
+        return response;
+    }
+
+    private BatchTransferResponse withUnprocessed(List<BatchTransferItemResult> processed, int total) {
+        List<BatchTransferItemResult> results = new ArrayList<>(total);
+        results.addAll(processed);
+        for (int index = processed.size(); index < total; index++) {
+            results.add(BatchTransferItemResult.builder()
+                    .index(index)
+                    .status(Transaction.TransactionStatus.FAILED)
+                    .message(NOT_PROCESSED_MESSAGE)
+                    .build());
+        }
+        return BatchTransferResponse.of(results);
+    }
+
+    /*
+     * One database transaction per chunk: every account in the chunk is locked with a single
+     * ordered SELECT ... FOR UPDATE, items are validated against running in-memory balances,
+     * so each touched account is written once at flush no matter how many items hit it,
+     * and the ledger rows go out as one JDBC batch.
+     */
+    private List<BatchTransferItemResult> processBatchChunk(List<TransferRequest> chunk, int offset,
+                                                            Long currentUserId, boolean admin) {
+        Set<String> accountNumbers = new HashSet<>();
+        for (TransferRequest request : chunk) {
+            accountNumbers.add(request.getFromAccountNumber());
+            accountNumbers.add(request.getToAccountNumber());
+        }
+
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllByAccountNumberInForUpdate(accountNumbers)) {
+            accountShardService.consolidate(account);
+            accounts.put(account.getAccountNumber(), account);
+        }
+        Set<Long> accountsWithActiveCards = accounts.isEmpty() ? Set.of() :
+                cardRepository.findAccountIdsWithActiveCards(
+                        accounts.values().stream().map(Account::getId).collect(Collectors.toSet()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> ledgerRows = new ArrayList<>();
+        List<BatchTransferItemResult> results = new ArrayList<>(chunk.size());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            TransferRequest request = chunk.get(i);
+            Account fromAccount = accounts.get(request.getFromAccountNumber());
+            Account toAccount = accounts.get(request.getToAccountNumber());
+
+            String error = validateBatchItem(request, fromAccount, toAccount,
+                    accountsWithActiveCards, currentUserId, admin);
+            if (error != null) {
+                results.add(BatchTransferItemResult.builder()
+                        .index(offset + i)
+                        .status(Transaction.TransactionStatus.FAILED)
+                        .message(error)
+                        .build());
+                continue;
+            }
+
+            fromAccount.setBalance(fromAccount.getBalance().subtract(request.getAmount()));
+            toAccount.setBalance(toAccount.getBalance().add(request.getAmount()));
+
+            Transaction transaction = Transaction.builder()
+                    .transactionId(transactionIdGenerator.nextTransactionId())
+                    .amount(request.getAmount())
+                    .currency(fromAccount.getCurrency())
+                    .type(Transaction.TransactionType.TRANSFER)
+                    .status(Transaction.TransactionStatus.COMPLETED)
+                    .description(request.getDescription() != null ?
+                            request.getDescription() : "Transfer to " + toAccount.getAccountNumber())
+                    .fromAccount(fromAccount)
+                    .toAccount(toAccount)
+                    .createdAt(now)
+                    .build();
+            ledgerRows.add(transaction);
+
+            results.add(BatchTransferItemResult.builder()
+                    .index(offset + i)
+                    .status(Transaction.TransactionStatus.COMPLETED)
+                    .transactionId(transaction.getTransactionId())
+                    .build());
+        }
+
+        if (!ledgerRows.isEmpty()) {
+            transactionBatchRepository.insertAll(ledgerRows);
+            monthlySummaryService.recordAll(ledgerRows);
+        }
+
+        return results;
+    }
+
+    private String validateBatchItem(TransferRequest request, Account fromAccount, Account toAccount,
+                                     Set<Long> accountsWithActiveCards, Long currentUserId, boolean admin) {
+        if (fromAccount == null) {
+            return "Account not found: " + request.getFromAccountNumber();
+        }
+        if (toAccount == null) {
+            return "Account not found: " + request.getToAccountNumber();
+        }
+        if (!admin && !fromAccount.getUser().getId().equals(currentUserId)) {
+            return "From account does not belong to current user";
+        }
+        if (!admin && !toAccount.getUser().getId().equals(currentUserId)) {
+            return "To account does not belong to current user";
+        }
+        if (fromAccount.getStatus() != Account.AccountStatus.ACTIVE) {
+            return "From account is not active";
+        }
+        if (toAccount.getStatus() != Account.AccountStatus.ACTIVE) {
+            return "To account is not active";
+        }
+        if (!accountsWithActiveCards.contains(fromAccount.getId())) {
+            return "No active cards for from account";
+        }
+        if (!fromAccount.getCurrency().equals(toAccount.getCurrency())) {
+            return "Currency mismatch between accounts";
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be positive";
+        }
+        if (fromAccount.getBalance().compareTo(request.getAmount()) < 0) {
+            return new InsufficientFundsException(fromAccount.getBalance(), request.getAmount()).getMessage();
+        }
+        if (fromAccount.getId().equals(toAccount.getId())) {
+            return "Cannot transfer to the same account";
+        }
+        return null;
+    }
+
+    @Override
+    public TransactionDto submitTransfer(TransferRequest transferRequest) {
+        return transferExecutor.execute(() -> {
+            Long currentUserId = securityService.getCurrentUserId();
+
+            Account fromAccount = accountRepository.findByAccountNumber(transferRequest.getFromAccountNumber())
+                    .orElseThrow(() -> new AccountNotFoundException(transferRequest.getFromAccountNumber()));
+            Account toAccount = accountRepository.findByAccountNumber(transferRequest.getToAccountNumber())
+                    .orElseThrow(() -> new AccountNotFoundException(transferRequest.getToAccountNumber()));
+
+            validateCardOwnership(fromAccount, toAccount, currentUserId);
+
+            return acceptTransfer(fromAccount, toAccount, null, transferRequest.getAmount(),
+                    transferRequest.getDescription() != null ?
+                            transferRequest.getDescription() : "Transfer to " + toAccount.getAccountNumber());
+        });
+    }
+
+    @Override
+    public TransactionDto submitCardToCardTransfer(CardToCardTransferRequest request) {
+        return transferExecutor.execute(() -> {
+            Long currentUserId = securityService.getCurrentUserId();
+
+            Card fromCard = cardRepository.findById(request.getFromCardId())
+                    .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
+            Card toCard = cardRepository.findById(request.getToCardId())
+                    .orElseThrow(() -> new CardNotFoundException(request.getToCardId()));
+
+            securityService.checkCardAccess(request.getFromCardId());
+
+            if (!fromCard.getAccount().getUser().getId().equals(currentUserId) ||
+                    !toCard.getAccount().getUser().getId().equals(currentUserId)) {
+                throw new TransferValidationException("Cannot transfer between cards of different users");
+            }
+
+            return acceptTransfer(fromCard.getAccount(), toCard.getAccount(), fromCard, request.getAmount(),
+                    request.getDescription() != null ? request.getDescription() :
+                            "Card-to-card transfer to " + toCard.getMaskedCardNumber());
+        });
+    }
+
+    @Override
+    public TransactionDto submitCardToAccountTransfer(CardToAccountTransferRequest request) {
+        return transferExecutor.execute(() -> {
+            Card fromCard = cardRepository.findById(request.getFromCardId())
+                    .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
+            Account toAccount = accountRepository.findByAccountNumber(request.getToAccountNumber())
+                    .orElseThrow(() -> new AccountNotFoundException(request.getToAccountNumber()));
+
+            securityService.checkCardAccess(request.getFromCardId());
+
+            return acceptTransfer(fromCard.getAccount(), toAccount, fromCard, request.getAmount(),
+                    request.getDescription() != null ? request.getDescription() :
+                            "Transfer to account " + request.getToAccountNumber());
+        });
+    }
+
+    /*
+     * Only ownership is checked on the request thread; balances, statuses and cards are validated
+     * by the worker under the account locks, exactly as the synchronous path does.
+     * The worker is notified once the PENDING row has committed.
+     */
+    private TransactionDto acceptTransfer(Account fromAccount, Account toAccount, Card fromCard,
+                                          BigDecimal amount, String description) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new TransferValidationException("Amount must be positive");
+        }
+
+        Transaction transaction = Transaction.builder()
+                .transactionId(transactionIdGenerator.nextTransactionId())
+                .amount(amount)
+                .currency(fromAccount.getCurrency())
+                .type(Transaction.TransactionType.TRANSFER)
+                .status(Transaction.TransactionStatus.PENDING)
+                .description(description)
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .fromCardId(fromCard != null ? fromCard.getId() : null)
+                .build();
+
+        Transaction savedTransaction = transactionRepository.save(transaction);
+        eventPublisher.publishEvent(new TransferAcceptedEvent(savedTransaction.getId()));
+
+        log.info("Transfer {} accepted: {} {} from account {} to account {}",
+                savedTransaction.getTransactionId(), amount, fromAccount.getCurrency(),
+                fromAccount.getId(), toAccount.getId());
+
+        return convertToDto(savedTransaction);
+    }
+
+    // The worker picks the transfer up as soon as it is accepted, before a lagging replica has it, so the
+    // row is read in a read-write transaction; that one is closed again before the account locks are taken
+    @Override
+    public void processPendingTransfer(Long id) {
+        Transaction pending = transferExecutor.execute(() -> transactionRepository.findById(id))
+                .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + id));
+        if (pending.getStatus() != Transaction.TransactionStatus.PENDING) {
+            return;
+        }
+        Long fromAccountId = pending.getFromAccount().getId();
+        Long toAccountId = pending.getToAccount().getId();
+
+        executeLocked(fromAccountId, toAccountId, () -> doPendingTransfer(id, fromAccountId, toAccountId));
+    }
+
+    private Transaction doPendingTransfer(Long id, Long fromAccountId, Long toAccountId) {
+        Transaction transaction = transactionRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + id));
+        if (transaction.getStatus() != Transaction.TransactionStatus.PENDING) {
+            // Another worker or the recovery sweep got here first
+            return transaction;
+        }
+
+        LockedAccounts locked = lockAccounts(fromAccountId, toAccountId);
+        Account fromAccount = locked.from();
+        Account toAccount = locked.to();
+
+        try {
+            validateTransfer(fromAccount, toAccount, transaction.getAmount());
+            if (transaction.getFromCardId() != null) {
+                Card fromCard = cardRepository.findById(transaction.getFromCardId())
+                        .orElseThrow(() -> new CardNotFoundException(transaction.getFromCardId()));
+                cardSpendingLimiter.reserve(fromCard, transaction.getAmount());
+            }
+        } catch (RuntimeException e) {
+            transaction.setStatus(Transaction.TransactionStatus.FAILED);
+            transaction.setFailureReason(e.getMessage());
+            log.warn("Transfer {} failed: {}", transaction.getTransactionId(), e.getMessage());
+            return transactionRepository.save(transaction);
+        }
+
+        fromAccount.setBalance(fromAccount.getBalance().subtract(transaction.getAmount()));
+        credit(toAccount, transaction.getAmount());
+
+        accountRepository.save(fromAccount);
+        accountRepository.save(toAccount);
+
+        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+        Transaction savedTransaction = transactionRepository.save(transaction);
+        ledgerService.record(savedTransaction);
+        monthlySummaryService.record(savedTransaction);
+
+        log.info("Transfer {} completed: {} {} from account {} to account {}",
+                transaction.getTransactionId(), transaction.getAmount(), transaction.getCurrency(),
+                fromAccountId, toAccountId);
+
+        return savedTransaction;
+    }
+
+    // Not read-only, so it stays on the primary: clients poll it right after an asynchronous transfer
+    // is accepted, when a lagging replica may not have the transfer or its completion yet
+    @Override
+    @Transactional
+    public TransactionDto getTransactionStatus(String transactionId) {
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new RuntimeException("Transaction not found: " + transactionId));
+        securityService.checkUserAccess(transaction.getFromAccount().getUser().getId());
+        return convertToDto(transaction);
+    }
+
+    // Idempotent replays look up a transfer another node has only just committed, so this stays on the primary
+    @Override
+    @Transactional
     public TransactionDto getTransactionById(Long id) {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + id));
@@ -98,30 +557,68 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    public List<TransactionDto> getUserTransactions(Long userId) {
+    @Transactional(readOnly = true)
+    public TransactionPageResponse getUserTransactions(Long userId, String cursor, int limit) {
         securityService.checkUserAccess(userId);
-        return transactionRepository.findByUserId(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return findPage(accountRepository.findIdsByUserId(userId), HISTORY_START, startCursor(cursor, null), limit);
     }
 
     @Override
-    public List<TransactionDto> getAccountTransactions(String accountNumber) {
+    @Transactional(readOnly = true)
+    public TransactionPageResponse getAccountTransactions(String accountNumber, String cursor, int limit) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         securityService.checkUserAccess(account.getUser().getId());
 
-        return transactionRepository.findByFromAccountAccountNumberOrToAccountAccountNumber(accountNumber, accountNumber).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return findPage(List.of(account.getId()), HISTORY_START, startCursor(cursor, null), limit);
     }
 
     @Override
-    public List<TransactionDto> getTransactionsByDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+    @Transactional(readOnly = true)
+    public TransactionPageResponse getTransactionsByDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                                              String cursor, int limit) {
         securityService.checkUserAccess(userId);
-        return transactionRepository.findByUserIdAndDateRange(userId, startDate, endDate).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        // The end of the range is inclusive, so the first page starts just after it
+        TransactionCursor end = new TransactionCursor(endDate, Long.MAX_VALUE);
+        return findPage(accountRepository.findIdsByUserId(userId), startDate, startCursor(cursor, end), limit);
+    }
+
+    private TransactionCursor startCursor(String cursor, TransactionCursor defaultCursor) {
+        if (cursor != null && !cursor.isBlank()) {
+            return TransactionCursor.decode(cursor);
+        }
+        return defaultCursor != null ? defaultCursor : TransactionCursor.START;
+    }
+
+    /*
+     * Keyset page: one index range query for the ids (one row more than asked to learn whether
+     * another page exists), then one projection query reading those rows with their account numbers.
+     */
+    private TransactionPageResponse findPage(List<Long> accountIds, LocalDateTime since,
+                                             TransactionCursor after, int limit) {
+        if (accountIds.isEmpty()) {
+            return TransactionPageResponse.builder().items(List.of()).build();
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<Long> ids = transactionRepository.findPageIds(accountIds, since, after.createdAt(), after.id(), pageSize + 1);
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+
+        Map<Long, TransactionDto> byId = transactionRepository.findDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(TransactionDto::getId, dto -> dto));
+        List<TransactionDto> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            items.add(byId.get(id));
+        }
+
+        String nextCursor = hasMore ? TransactionCursor.of(items.get(items.size() - 1)).encode() : null;
+        return TransactionPageResponse.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Override
@@ -135,6 +632,7 @@ public class TransactionServiceImpl implements TransactionService {
         dto.setStatus(transaction.getStatus());
         dto.setDescription(transaction.getDescription());
         dto.setCreatedAt(transaction.getCreatedAt());
+        dto.setFailureReason(transaction.getFailureReason());
 
         if (transaction.getFromAccount() != null) {
             dto.setFromAccountId(transaction.getFromAccount().getId());
@@ -150,10 +648,22 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @Transactional
     public TransactionDto cardToCardTransfer(CardToCardTransferRequest request) {
+        Long fromAccountId = cardRepository.findAccountIdById(request.getFromCardId())
+                .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
+        Long toAccountId = cardRepository.findAccountIdById(request.getToCardId())
+                .orElseThrow(() -> new CardNotFoundException(request.getToCardId()));
+
+        return executeLocked(fromAccountId, toAccountId,
+                () -> doCardToCardTransfer(request, fromAccountId, toAccountId));
+    }
+
+    private TransactionDto doCardToCardTransfer(CardToCardTransferRequest request,
+                                                Long fromAccountId, Long toAccountId) {
         Long currentUserId = securityService.getCurrentUserId();
 
+        LockedAccounts locked = lockAccounts(fromAccountId, toAccountId);
+
         Card fromCard = cardRepository.findById(request.getFromCardId())
                 .orElseThrow(() -> new CardNotFoundException("Card not found with id: " + request.getFromCardId()));
 
@@ -167,20 +677,18 @@ public class TransactionServiceImpl implements TransactionService {
             throw new TransferValidationException("Cannot transfer between cards of different users");
         }
 
-        Account fromAccount = fromCard.getAccount();
-        Account toAccount = toCard.getAccount();
-
-        return performTransfer(fromAccount, toAccount, request.getAmount(),
+        return performTransfer(locked.from(), locked.to(), fromCard, request.getAmount(),
                 request.getDescription() != null ? request.getDescription() :
                         "Card-to-card transfer to " + toCard.getMaskedCardNumber());
     }
 
-    private TransactionDto performTransfer(Account fromAccount, Account toAccount,
+    private TransactionDto performTransfer(Account fromAccount, Account toAccount, Card fromCard,
                                            BigDecimal amount, String description) {
         validateTransfer(fromAccount, toAccount, amount);
+        cardSpendingLimiter.reserve(fromCard, amount);
 
         fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
-        toAccount.setBalance(toAccount.getBalance().add(amount));
+        credit(toAccount, amount);
 
         accountRepository.save(fromAccount);
         accountRepository.save(toAccount);
@@ -193,9 +701,12 @@ public class TransactionServiceImpl implements TransactionService {
                 .description(description)
                 .fromAccount(fromAccount)
                 .toAccount(toAccount)
+                .fromCardId(fromCard.getId())
                 .build();
 
         Transaction savedTransaction = transactionRepository.save(transaction);
+        ledgerService.record(savedTransaction);
+        monthlySummaryService.record(savedTransaction);
 
         log.info("Card transfer completed: {} {} from account {} to account {}",
                 amount, fromAccount.getCurrency(), fromAccount.getId(), toAccount.getId());
@@ -204,25 +715,88 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    @Transactional
     public TransactionDto cardToAccountTransfer(CardToAccountTransferRequest request) {
+        Long fromAccountId = cardRepository.findAccountIdById(request.getFromCardId())
+                .orElseThrow(() -> new RuntimeException("Card not found with id: " + request.getFromCardId()));
 
+        Long toAccountId = accountRepository.findIdByAccountNumber(request.getToAccountNumber())
+                .orElseThrow(() -> new AccountNotFoundException(request.getToAccountNumber()));
 
-        Card fromCard = cardRepository.findById(request.getFromCardId())
-                .orElseThrow(() -> new RuntimeException("Card not found with id: " + request.getFromCardId()));
+        return executeLocked(fromAccountId, toAccountId,
+                () -> doCardToAccountTransfer(request, fromAccountId, toAccountId));
+    }
 
-        securityService.checkCardAccess(request.getFromCardId());
+    private TransactionDto doCardToAccountTransfer(CardToAccountTransferRequest request,
+                                                   Long fromAccountId, Long toAccountId) {
+        LockedAccounts locked = lockAccounts(fromAccountId, toAccountId);
 
-        Account toAccount = accountRepository.findByAccountNumber(request.getToAccountNumber())
-                .orElseThrow(() -> new AccountNotFoundException(request.getToAccountNumber()));
+        securityService.checkCardAccess(request.getFromCardId());
 
-        Account fromAccount = fromCard.getAccount();
+        Card fromCard = cardRepository.findById(request.getFromCardId())
+                .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
 
-        return performTransfer(fromAccount, toAccount, request.getAmount(),
+        return performTransfer(locked.from(), locked.to(), fromCard, request.getAmount(),
                 request.getDescription() != null ? request.getDescription() :
                         "Transfer to account " + request.getToAccountNumber());
     }
 
+    private <T> T executeLocked(Long fromAccountId, Long toAccountId, Supplier<T> work) {
+        Long lockedToAccountId = accountShardService.isSharded(toAccountId) ? fromAccountId : toAccountId;
+        return accountLockManager.withAccountLocks(fromAccountId, lockedToAccountId,
+                () -> transferExecutor.execute(work));
+    }
+
+    /*
+     * Accounts are resolved to ids first and only then loaded with SELECT ... FOR UPDATE,
+     * always in ascending id order, so the persistence context never holds a stale unlocked
+     * copy and two transfers over the same pair of accounts cannot deadlock each other.
+     * A sharded target is credited through one of its shard rows and is not locked at all;
+     * a sharded source has its shards folded into the main balance before it is debited.
+     */
+    private LockedAccounts lockAccounts(Long fromAccountId, Long toAccountId) {
+        if (fromAccountId.equals(toAccountId)) {
+            Account account = lockAccount(fromAccountId);
+            accountShardService.consolidate(account);
+            return new LockedAccounts(account, account);
+        }
+
+        if (accountShardService.isSharded(toAccountId)) {
+            Account fromAccount = lockAccount(fromAccountId);
+            accountShardService.consolidate(fromAccount);
+            Account toAccount = accountRepository.findById(toAccountId)
+                    .orElseThrow(() -> new AccountNotFoundException(String.valueOf(toAccountId)));
+            return new LockedAccounts(fromAccount, toAccount);
+        }
+
+        boolean fromFirst = fromAccountId < toAccountId;
+        Account first = lockAccount(fromFirst ? fromAccountId : toAccountId);
+        Account second = lockAccount(fromFirst ? toAccountId : fromAccountId);
+
+        LockedAccounts locked = fromFirst ? new LockedAccounts(first, second) : new LockedAccounts(second, first);
+        accountShardService.consolidate(locked.from());
+        return locked;
+    }
+
+    private void credit(Account account, BigDecimal amount) {
+        if (account.getBalanceShards() > 0) {
+            accountShardService.credit(account, amount);
+        } else {
+            account.setBalance(account.getBalance().add(amount));
+        }
+    }
+
+    private Account lockAccount(Long accountId) {
+        return accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(String.valueOf(accountId)));
+    }
+
+    private record LockedAccounts(Account from, Account to) {
+    }
+
+    public enum TransferMode {
+        JPA, PROCEDURE
+    }
+
     private void validateCardOwnership(Account fromAccount, Account toAccount, Long currentUserId) {
         if (!fromAccount.getUser().getId().equals(currentUserId)) {
             throw new CardNotFoundException("From account does not belong to current user");
@@ -1,18 +1,29 @@
 package com.example.bankcards.service.impl;
 
 import com.example.bankcards.dto.*;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ServiceBusyException;
+import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.AccountService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.SecurityService;
+import com.example.bankcards.service.TokenRevocationService;
 import com.example.bankcards.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,36 +32,47 @@ import java.util.stream.Collectors;
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    // Keeps the card ID-IN lists well below the bind parameter limits of the drivers
+    private static final int ACCOUNT_ID_CHUNK = 1000;
+
     private final UserRepository userRepository;
+    private final CardRepository cardRepository;
     private final PasswordEncoder passwordEncoder;
 
     private final CardService cardService;
     private final AccountService accountService;
+    private final SecurityService securityService;
+    private final TokenRevocationService tokenRevocationService;
+    private final TransactionTemplate transactionTemplate;
 
-
-
-
+    // Passwords are hashed before the transaction starts, so BCrypt never holds a pooled connection
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User createUser(User user) {
         try {
-            if (Boolean.TRUE.equals(userRepository.existsByUsername(user.getUsername()))) {
-                throw new IllegalArgumentException("Username already exists1: " + user.getUsername());
-            }
+            String encodedPassword = passwordEncoder.encode(user.getPassword());
 
-            if (Boolean.TRUE.equals(userRepository.existsByEmail(user.getEmail()))) {
-                throw new IllegalArgumentException("Email already exists1: " + user.getEmail());
-            }
+            return transactionTemplate.execute(status -> {
+                if (Boolean.TRUE.equals(userRepository.existsByUsername(user.getUsername()))) {
+                    throw new IllegalArgumentException("Username already exists1: " + user.getUsername());
+                }
 
-            if (user.getRoles() == null || user.getRoles().isEmpty()) {
-                user.setRoles(List.of("ROLE_USER"));
-            }
+                if (Boolean.TRUE.equals(userRepository.existsByEmail(user.getEmail()))) {
+                    throw new IllegalArgumentException("Email already exists1: " + user.getEmail());
+                }
 
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
+                if (user.getRoles() == null || user.getRoles().isEmpty()) {
+                    user.setRoles(List.of("ROLE_USER"));
+                }
 
-            User savedUser = userRepository.save(user);
-            log.info("Created user: {}", user.getUsername());
-            return savedUser;
+                user.setPassword(encodedPassword);
+
+                User savedUser = userRepository.save(user);
+                log.info("Created user: {}", user.getUsername());
+                return savedUser;
+            });
+        } catch (ServiceBusyException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error creating user: {}", user.getUsername(), e);
             throw new IllegalArgumentException("Failed to create user", e);
@@ -83,6 +105,7 @@ public class UserServiceImpl implements UserService {
     @Transactional(readOnly = true)
     @Override
     public UserDto getUserWithCards(Long userId) {
+        securityService.checkUserAccess(userId);
         User user = userRepository.findByIdWithAccountsAndCards(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         return convertToDto(user);
@@ -91,15 +114,41 @@ public class UserServiceImpl implements UserService {
     @Transactional(readOnly = true)
     @Override
     public List<UserDto> getAllUsersWithCards() {
-        List<User> users = userRepository.findAllWithAccountsAndCards();
-        return users.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(userRepository.findAllWithAccountsAndCards());
     }
 
     @Transactional(readOnly = true)
     @Override
     public UserDto convertToDto(User user) {
+        return convertToDtos(List.of(user)).get(0);
+    }
+
+    /*
+     * Accounts arrive with the users (fetch join or batch fetching); the cards of all those accounts
+     * are then read with one ID-IN query per ACCOUNT_ID_CHUNK accounts and grouped in memory, so the
+     * query count grows with the number of accounts / chunk rather than with the number of users.
+     */
+    private List<UserDto> convertToDtos(List<User> users) {
+        List<Long> accountIds = users.stream()
+                .flatMap(user -> user.getAccounts().stream())
+                .map(Account::getId)
+                .toList();
+
+        Map<Long, List<CardDto>> cardsByAccountId = new HashMap<>();
+        for (int from = 0; from < accountIds.size(); from += ACCOUNT_ID_CHUNK) {
+            List<Long> chunk = accountIds.subList(from, Math.min(from + ACCOUNT_ID_CHUNK, accountIds.size()));
+            for (Card card : cardRepository.findByAccountIdIn(chunk)) {
+                cardsByAccountId.computeIfAbsent(card.getAccount().getId(), id -> new ArrayList<>())
+                        .add(cardService.convertToDto(card));
+            }
+        }
+
+        return users.stream()
+                .map(user -> convertToDto(user, cardsByAccountId))
+                .collect(Collectors.toList());
+    }
+
+    private UserDto convertToDto(User user, Map<Long, List<CardDto>> cardsByAccountId) {
         UserDto dto = new UserDto();
         dto.setId(user.getId());
         dto.setUsername(user.getUsername());
@@ -115,8 +164,7 @@ public class UserServiceImpl implements UserService {
             dto.setAccounts(user.getAccounts().stream()
                     .map(account -> {
                         AccountDto accountDto = accountService.convertToDto(account);
-                        List<CardDto> cards = cardService.getAccountCards(account.getId());
-                        accountDto.setCards(cards);
+                        accountDto.setCards(cardsByAccountId.getOrDefault(account.getId(), List.of()));
                         return accountDto;
                     })
                     .collect(Collectors.toList()));
@@ -135,10 +183,7 @@ public class UserServiceImpl implements UserService {
     @Transactional(readOnly = true)
     @Override
     public List<UserDto> getAllUserDtos() {
-        List<User> users = getAllUsers();
-        return users.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertToDtos(getAllUsers());
     }
 
     @Override
@@ -168,43 +213,47 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User updateUser(Long userId, UserUpdateDto userUpdateDto) {
-        User user = getUserById(userId);
+        String encodedPassword = userUpdateDto.hasPassword() ? passwordEncoder.encode(userUpdateDto.getPassword()) : null;
 
-        if (userUpdateDto.hasUsername() && !user.getUsername().equals(userUpdateDto.getUsername())) {
-            if (Boolean.TRUE.equals(userRepository.existsByUsername(userUpdateDto.getUsername()))) {
-                throw new IllegalArgumentException("Username already exists: " + userUpdateDto.getUsername());
+        return transactionTemplate.execute(status -> {
+            User user = getUserById(userId);
+
+            if (userUpdateDto.hasUsername() && !user.getUsername().equals(userUpdateDto.getUsername())) {
+                if (Boolean.TRUE.equals(userRepository.existsByUsername(userUpdateDto.getUsername()))) {
+                    throw new IllegalArgumentException("Username already exists: " + userUpdateDto.getUsername());
+                }
+                user.setUsername(userUpdateDto.getUsername());
             }
-            user.setUsername(userUpdateDto.getUsername());
-        }
 
-        if (userUpdateDto.hasEmail() && !user.getEmail().equals(userUpdateDto.getEmail())) {
-            if (Boolean.TRUE.equals(userRepository.existsByEmail(userUpdateDto.getEmail()))) {
-                throw new IllegalArgumentException("Email already exists: " + userUpdateDto.getEmail());
+            if (userUpdateDto.hasEmail() && !user.getEmail().equals(userUpdateDto.getEmail())) {
+                if (Boolean.TRUE.equals(userRepository.existsByEmail(userUpdateDto.getEmail()))) {
+                    throw new IllegalArgumentException("Email already exists: " + userUpdateDto.getEmail());
+                }
+                user.setEmail(userUpdateDto.getEmail());
             }
-            user.setEmail(userUpdateDto.getEmail());
-        }
 
-        if (userUpdateDto.hasPassword()) {
-            user.setPassword(passwordEncoder.encode(userUpdateDto.getPassword()));
-        }
+            if (encodedPassword != null) {
+                user.setPassword(encodedPassword);
+            }
 
-        if (userUpdateDto.hasFirstName()) {
-            user.setFirstName(userUpdateDto.getFirstName());
-        }
+            if (userUpdateDto.hasFirstName()) {
+                user.setFirstName(userUpdateDto.getFirstName());
+            }
 
-        if (userUpdateDto.hasLastName()) {
-            user.setLastName(userUpdateDto.getLastName());
-        }
+            if (userUpdateDto.hasLastName()) {
+                user.setLastName(userUpdateDto.getLastName());
+            }
 
-        if (userUpdateDto.hasRoles()) {
-            user.setRoles(userUpdateDto.getRoles());
-        }
+            if (userUpdateDto.hasRoles()) {
+                user.setRoles(userUpdateDto.getRoles());
+            }
 
-        User updatedUser = userRepository.save(user);
-        log.info("Updated user with partial data: {}", userId);
-        return updatedUser;
+            User updatedUser = userRepository.save(user);
+            log.info("Updated user with partial data: {}", userId);
+            return updatedUser;
+        });
     }
 
 
@@ -213,11 +262,12 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(Long userId) {
         User user = getUserById(userId);
         userRepository.delete(user);
+        tokenRevocationService.recordDeletion(userId);
         log.info("Deleted user: {}", userId);
     }
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User registerUser(UserRegistrationDto registrationDto) {
         User user = User.builder()
                 .username(registrationDto.getUsername())
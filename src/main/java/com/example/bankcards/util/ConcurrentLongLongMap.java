@@ -0,0 +1,162 @@
+package com.example.bankcards.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Hash map from {@code long} to {@code long} without boxing: open addressing with linear probing over a
+ * single array holding keys and values side by side, kept at most half full. Key {@code 0} marks an
+ * empty slot and cannot be stored.
+ *
+ * <p>Reads take no lock: they probe under an optimistic {@link StampedLock} stamp and only retry under
+ * the read lock when a write happened meanwhile. Writes are serialised by the write lock.
+ */
+public class ConcurrentLongLongMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+    private long[] table = new long[MIN_CAPACITY * 2];
+    private int size;
+
+    public long get(long key, long missingValue) {
+        long stamp = lock.tryOptimisticRead();
+        long value = find(table, key, missingValue);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return find(table, key, missingValue);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(long key, long value) {
+        checkKey(key);
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > capacity(table)) {
+                table = rehash(table, capacity(table) * 2);
+            }
+            if (insert(table, key, value)) {
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long key) {
+        checkKey(key);
+        long stamp = lock.writeLock();
+        try {
+            long[] t = table;
+            int mask = capacity(t) - 1;
+            int slot = slot(key, mask);
+            while (t[slot * 2] != key) {
+                if (t[slot * 2] == 0) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            // Shift the rest of the probe chain back so lookups never stop at the freed slot
+            int free = slot;
+            for (int next = (free + 1) & mask; t[next * 2] != 0; next = (next + 1) & mask) {
+                int home = slot(t[next * 2], mask);
+                if (((next - home) & mask) >= ((next - free) & mask)) {
+                    t[free * 2] = t[next * 2];
+                    t[free * 2 + 1] = t[next * 2 + 1];
+                    free = next;
+                }
+            }
+            t[free * 2] = 0;
+            t[free * 2 + 1] = 0;
+            size--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new long[MIN_CAPACITY * 2];
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /*
+     * May run against a table that is being written; the probe count is bounded so a torn read ends,
+     * and the caller discards its result when the stamp no longer validates.
+     */
+    private static long find(long[] t, long key, long missingValue) {
+        int mask = capacity(t) - 1;
+        int slot = slot(key, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            long k = t[slot * 2];
+            if (k == key) {
+                return t[slot * 2 + 1];
+            }
+            if (k == 0) {
+                return missingValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    private static boolean insert(long[] t, long key, long value) {
+        int mask = capacity(t) - 1;
+        int slot = slot(key, mask);
+        while (t[slot * 2] != 0) {
+            if (t[slot * 2] == key) {
+                t[slot * 2 + 1] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        t[slot * 2] = key;
+        t[slot * 2 + 1] = value;
+        return true;
+    }
+
+    private static long[] rehash(long[] t, int capacity) {
+        long[] resized = new long[capacity * 2];
+        for (int i = 0; i < t.length; i += 2) {
+            if (t[i] != 0) {
+                insert(resized, t[i], t[i + 1]);
+            }
+        }
+        return resized;
+    }
+
+    private static int capacity(long[] t) {
+        return t.length >> 1;
+    }
+
+    private static int slot(long key, int mask) {
+        // Sequential ids would otherwise fill one contiguous run of slots
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static void checkKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved for empty slots");
+        }
+    }
+}
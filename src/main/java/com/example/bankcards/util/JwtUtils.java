@@ -7,25 +7,46 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * Issues and verifies the HS256 tokens. The signing key and parser are built once and shared, and
+ * verified claims are kept in a bounded map keyed by the SHA-256 of the token until the token expires,
+ * so a client repeating its bearer token skips the signature check and the JSON parsing. Lookups take
+ * no lock; once {@code app.jwt.verified-cache-size} entries are reached, expired tokens are dropped,
+ * and if that frees nothing the cache starts over. The cache holds digests rather than tokens, and
+ * {@code app.jwt.verified-cache-size: 0} turns it off.
+ */
 @Component
 @Slf4j
 public class JwtUtils {
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    private final SecretKey signingKey;
+    private final JwtParser jwtParser;
+    private final int jwtExpirationMs;
+    private final int verifiedCacheSize;
+    private final Map<String, VerifiedToken> verifiedTokens;
 
-    @Value("${app.jwt.expiration}")
-    private int jwtExpirationMs;
-
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public JwtUtils(@Value("${app.jwt.secret}") String jwtSecret,
+                    @Value("${app.jwt.expiration}") int jwtExpirationMs,
+                    @Value("${app.jwt.verified-cache-size:10000}") int verifiedCacheSize) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.verifiedCacheSize = verifiedCacheSize;
+        this.verifiedTokens = verifiedCacheSize <= 0 ? null : new ConcurrentHashMap<>();
     }
 
     public String generateJwtToken(Authentication authentication) {
@@ -42,26 +63,82 @@ public class JwtUtils {
                 .claim("roles", roles)  // Добавляем роли в токен
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verifies the token once and returns its claims, or {@code null} when it is malformed, badly
+     * signed or expired. The returned claims may be shared with other requests and must not be modified.
+     */
+    public Claims parseAndVerify(String token) {
+        if (token == null || token.isEmpty()) {
+            log.error("JWT claims string is empty");
+            return null;
+        }
+        if (verifiedTokens == null) {
+            return verify(token);
+        }
+
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (cached.expiresAtMs() > System.currentTimeMillis()) {
+                return cached.claims();
+            }
+            verifiedTokens.remove(digest);
+        }
+
+        Claims claims = verify(token);
+        if (claims != null && claims.getExpiration() != null) {
+            cache(digest, new VerifiedToken(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    // Threads that find the cache full at the same time may each evict; that only costs re-verification
+    private void cache(String digest, VerifiedToken verified) {
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            long now = System.currentTimeMillis();
+            verifiedTokens.values().removeIf(entry -> entry.expiresAtMs() <= now);
+            if (verifiedTokens.size() >= verifiedCacheSize) {
+                log.info("Verified token cache reached {} entries, starting over", verifiedCacheSize);
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(digest, verified);
+    }
+
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        Claims claims = parseAndVerify(token);
+        return claims == null ? null : claims.getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseAndVerify(authToken) != null;
+    }
+
+    /**
+     * Rebuilds the principal from the claims written by {@link #generateJwtToken}, without the
+     * password. Returns {@code null} for tokens that predate the userId claim.
+     */
+    public UserPrincipal getPrincipalFromClaims(Claims claims) {
+        Long userId = claims.get("userId", Long.class);
+        if (userId == null) {
+            return null;
+        }
+
+        List<?> roles = claims.get("roles", List.class);
+        List<GrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+
+        return new UserPrincipal(userId, claims.getSubject(), claims.get("email", String.class), null, authorities);
+    }
+
+    private Claims verify(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (SecurityException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -70,9 +147,23 @@ public class JwtUtils {
             log.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             log.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.error("JWT token is invalid: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             log.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record VerifiedToken(Claims claims, long expiresAtMs) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.TransactionDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a transaction history ordered by {@code (createdAt, id)} descending. Clients only see
+ * the opaque {@link #encode() encoded} form; the next page starts strictly after this position.
+ */
+public record TransactionCursor(LocalDateTime createdAt, Long id) {
+
+    /**
+     * Position before the newest possible row, used for the first page.
+     */
+    public static final TransactionCursor START = new TransactionCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    private static final char SEPARATOR = '_';
+
+    public static TransactionCursor of(TransactionDto transaction) {
+        return new TransactionCursor(transaction.getCreatedAt(), transaction.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new TransactionCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
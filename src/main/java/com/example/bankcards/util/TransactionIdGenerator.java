@@ -0,0 +1,102 @@
+package com.example.bankcards.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style id generator: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node id
+ * and 12 bits of per-millisecond sequence. Ids are unique across nodes with distinct node ids and
+ * strictly increasing on each node.
+ *
+ * <p>The last issued timestamp and sequence live in a single {@link AtomicLong}, so issuing an id
+ * is one CAS. If the wall clock moves backwards the generator keeps counting on the last issued
+ * millisecond and, once its sequence is exhausted, spins until the clock has caught up; a step back
+ * of more than {@code maxClockDriftMs} is refused instead of waited out.
+ */
+@Component
+public class TransactionIdGenerator {
+
+    public static final String PREFIX = "TXN";
+
+    // 2024-01-01T00:00:00Z
+    static final long EPOCH = 1704067200000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static volatile TransactionIdGenerator defaultInstance =
+            new TransactionIdGenerator(0, 5000, System::currentTimeMillis);
+
+    private final long nodeBits;
+    private final long maxClockDriftMs;
+    private final LongSupplier clock;
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public TransactionIdGenerator(@Value("${app.transaction-id.node-id:0}") long nodeId,
+                                  @Value("${app.transaction-id.max-clock-drift-ms:5000}") long maxClockDriftMs) {
+        this(nodeId, maxClockDriftMs, System::currentTimeMillis);
+        TransactionIdGenerator previous = defaultInstance;
+        if (previous.nodeBits == nodeBits) {
+            // Continue where the bootstrap generator stopped so ids issued before startup cannot repeat
+            state.set(previous.state.get());
+        }
+        defaultInstance = this;
+    }
+
+    TransactionIdGenerator(long nodeId, long maxClockDriftMs, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.maxClockDriftMs = maxClockDriftMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Generator used where no Spring bean can be injected, such as entity callbacks.
+     * It is the bean created from the application properties once the context has started.
+     */
+    public static TransactionIdGenerator getDefault() {
+        return defaultInstance;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = state.get();
+            long previousMillis = previous >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+
+            long next;
+            if (now > previousMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if (previousMillis - now > maxClockDriftMs) {
+                throw new IllegalStateException("Clock moved backwards by more than "
+                        + maxClockDriftMs + " ms, refusing to generate transaction id");
+            } else {
+                // Same millisecond, or clock stepped back within tolerance: keep counting on the last timestamp
+                next = previous + 1;
+                if ((next >>> SEQUENCE_BITS) != previousMillis) {
+                    // Sequence exhausted: wait for the wall clock to pass the last issued millisecond
+                    Thread.onSpinWait();
+                    continue;
+                }
+            }
+
+            if (state.compareAndSet(previous, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+            }
+        }
+    }
+
+    public String nextTransactionId() {
+        return PREFIX + nextId();
+    }
+}
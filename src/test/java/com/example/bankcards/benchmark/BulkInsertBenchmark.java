@@ -0,0 +1,158 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.BankRestApplication;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists 1000 cards and 1000 transactions per operation through JPA. With {@code batchSize=1}
+ * every row is its own round trip, as it was under IDENTITY ids; with {@code batchSize=50} the
+ * pooled-lo sequences let Hibernate send the same rows as JDBC batches.
+ *
+ * <p>Runs against the in-memory H2 test database by default. For numbers that include network
+ * round trips pass {@code -Dspring.datasource.url=jdbc:postgresql://...?reWriteBatchedInserts=true}
+ * together with username, password, driver and {@code -Dspring.jpa.database-platform}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private Long fromAccountId;
+    private Long toAccountId;
+    private final AtomicLong cardNumbers = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankRestApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.bankcards=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = User.builder()
+                    .username("bench")
+                    .email("bench@example.com")
+                    .password("bench")
+                    .build();
+            entityManager.persist(user);
+
+            Account from = newAccount(user, "BENCH-FROM");
+            Account to = newAccount(user, "BENCH-TO");
+            entityManager.persist(from);
+            entityManager.persist(to);
+
+            fromAccountId = from.getId();
+            toAccountId = to.getId();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void insertCards() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = entityManager.getReference(Account.class, fromAccountId);
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(Card.builder()
+                        .encryptedCardNumber("BENCH" + cardNumbers.incrementAndGet())
+                        .encryptedCvv("000")
+                        .cardHolderName("BENCH")
+                        .type(Card.CardType.DEBIT)
+                        .status(Card.CardStatus.ACTIVE)
+                        .expiryDate(LocalDate.now().plusYears(3))
+                        .account(account)
+                        .build());
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    @Benchmark
+    public void insertTransactions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account from = entityManager.getReference(Account.class, fromAccountId);
+            Account to = entityManager.getReference(Account.class, toAccountId);
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(Transaction.builder()
+                        .amount(BigDecimal.ONE)
+                        .currency("USD")
+                        .type(Transaction.TransactionType.TRANSFER)
+                        .status(Transaction.TransactionStatus.COMPLETED)
+                        .description("Benchmark transfer")
+                        .fromAccount(from)
+                        .toAccount(to)
+                        .build());
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private Account newAccount(User user, String accountNumber) {
+        return Account.builder()
+                .accountNumber(accountNumber)
+                .balance(BigDecimal.ZERO)
+                .currency("USD")
+                .type(Account.AccountType.CURRENT)
+                .status(Account.AccountStatus.ACTIVE)
+                .user(user)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BulkInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.util.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request from its bearer token. {@code perCallParser} is what the filter
+ * used to do: build the key and parser for the signature check, then again to read the subject.
+ * The cached variants see the same token on every call, as a client polling with one token would.
+ * Run {@link #main} from the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTGenerationWhichIsVeryLongAndSecure123!";
+
+    private final JwtUtils uncached = new JwtUtils(SECRET, 3_600_000, 0);
+    private final JwtUtils cached = new JwtUtils(SECRET, 3_600_000, 10_000);
+    private final String token = uncached.generateJwtToken(authentication());
+
+    @Benchmark
+    public String perCallParser() {
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return uncached.parseAndVerify(token);
+    }
+
+    @Benchmark
+    public Claims verifiedTokenCache() {
+        return cached.parseAndVerify(token);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Claims verifiedTokenCacheEightThreads() {
+        return cached.parseAndVerify(token);
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication() {
+        UserPrincipal user = new UserPrincipal(7L, "ivanov", "ivanov@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
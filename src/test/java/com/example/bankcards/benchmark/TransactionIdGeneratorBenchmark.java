@@ -0,0 +1,64 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.TransactionIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Snowflake generator with the UUID ids the batch endpoint used before.
+ * A single node tops out at 4096 ids per millisecond by design, so the multi-threaded
+ * score should sit near 4 ops/us rather than scale with threads.
+ * Run {@link #main} from the test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionIdGeneratorBenchmark {
+
+    private final TransactionIdGenerator generator = new TransactionIdGenerator(1, 5000);
+
+    @Benchmark
+    public long snowflakeSingleThread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long snowflakeEightThreads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String snowflakeTransactionId() {
+        return generator.nextTransactionId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String uuidEightThreads() {
+        return "TXN" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionIdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.service.TransactionService;
+import com.example.bankcards.service.TransferExecutor;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wires the primary and replica pools with two in-memory H2 databases standing in for PostgreSQL and
+ * checks which one each kind of transaction ends up on. The replica's lag is read from a table the
+ * tests control.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.lag-query=SELECT seconds FROM replication_lag",
+        "app.datasource.replica.max-lag-seconds=5"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private TransferExecutor transferExecutor;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("CREATE TABLE IF NOT EXISTS replication_lag (seconds DOUBLE PRECISION)");
+        replica.update("DELETE FROM replication_lag");
+        replica.update("INSERT INTO replication_lag VALUES (0)");
+        routingDataSource.checkReplicaLag();
+    }
+
+    @Test
+    void readOnlyTransaction_UsesReplica() {
+        assertTrue(routingDataSource.isReplicaUsable());
+        assertEquals("ROUTING-REPLICA", databaseName(true));
+    }
+
+    @Test
+    void readWriteTransaction_UsesPrimary() {
+        assertEquals("ROUTING-PRIMARY", databaseName(false));
+    }
+
+    @Test
+    void readOnlyTransaction_ReplicaBehind_FallsBackToPrimary() {
+        new JdbcTemplate(replicaDataSource).update("UPDATE replication_lag SET seconds = 30");
+        routingDataSource.checkReplicaLag();
+
+        assertFalse(routingDataSource.isReplicaUsable());
+        assertEquals("ROUTING-PRIMARY", databaseName(true));
+    }
+
+    @Test
+    void getStats_CountsConnectionsPerPool() {
+        long before = replicaConnections();
+
+        databaseName(true);
+
+        assertEquals(before + 1, replicaConnections());
+    }
+
+    @Test
+    void getTransactionStatus_UsesPrimary() {
+        long before = replicaConnections();
+
+        // The replica has no schema, so a lookup routed there would fail with an SQL error instead
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> transactionService.getTransactionStatus("TXN-MISSING"));
+
+        assertEquals("Transaction not found: TXN-MISSING", exception.getMessage());
+        assertEquals(before, replicaConnections());
+    }
+
+    @Test
+    void getTransactionById_UsesPrimary() {
+        long before = replicaConnections();
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> transactionService.getTransactionById(-1L));
+
+        assertEquals("Transaction not found with id: -1", exception.getMessage());
+        assertEquals(before, replicaConnections());
+    }
+
+    @Test
+    void processPendingTransfer_ReadsPendingRowFromPrimary() {
+        long before = replicaConnections();
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> transactionService.processPendingTransfer(-1L));
+
+        assertEquals("Transaction not found with id: -1", exception.getMessage());
+        assertEquals(before, replicaConnections());
+    }
+
+    @Test
+    void idempotentReplay_ReadsFromPrimary() {
+        // Claimed by a request on another node; the transfer it points at is gone, so the replay reports
+        // it missing instead of failing on the replica, which has no schema
+        idempotencyKeyRepository.save(IdempotencyKey.builder()
+                .idempotencyKey("routing-replay").userId(7L).operation("TRANSFER").transactionId(-2L).build());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(7L, "routing", "routing@example.com", null, List.of()), null, List.of()));
+        long before = replicaConnections();
+
+        try {
+            RuntimeException exception = assertThrows(RuntimeException.class,
+                    () -> idempotencyService.execute("routing-replay", "TRANSFER", "request",
+                            () -> transferExecutor.execute(() -> {
+                                throw new AssertionError("transfer must not run twice");
+                            })));
+
+            assertEquals("Transaction not found with id: -2", exception.getMessage());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        assertEquals(before, replicaConnections());
+    }
+
+    private long replicaConnections() {
+        return routingDataSource.getStats().pools().stream()
+                .filter(pool -> pool.pool() == ReplicaRoutingDataSource.Pool.REPLICA)
+                .findFirst().orElseThrow()
+                .connections();
+    }
+
+    private String databaseName(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                (String) entityManager.createNativeQuery("SELECT DATABASE()").getSingleResult());
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.AccountDto;
+import com.example.bankcards.dto.HistoricalBalanceDto;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.service.AccountService;
+import com.example.bankcards.service.BalanceSnapshotService;
 import com.example.bankcards.service.SecurityService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +25,8 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -44,6 +48,9 @@ class AccountControllerTest {
     @MockBean
     private SecurityService securityService;
 
+    @MockBean
+    private BalanceSnapshotService balanceSnapshotService;
+
     private Account account;
     private AccountDto accountDto;
 
@@ -92,15 +99,30 @@ class AccountControllerTest {
     @WithMockUser(username = "testuser", roles = "USER")
     void getMyAccounts_Success() throws Exception {
         when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(accountService.getUserAccountsEtag(1L)).thenReturn("\"1-3-0\"");
         List<AccountDto> accounts = Arrays.asList(accountDto);
         when(accountService.getUserAccounts(anyLong())).thenReturn(accounts);
 
         mockMvc.perform(get("/accounts/my-accounts"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3-0\""))
                 .andExpect(jsonPath("$[0].id").value(1L))
                 .andExpect(jsonPath("$[0].accountNumber").value("1234567890"));
     }
 
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getMyAccounts_Unchanged_ReturnsNotModified() throws Exception {
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(accountService.getUserAccountsEtag(1L)).thenReturn("\"1-3-0\"");
+
+        mockMvc.perform(get("/accounts/my-accounts").header("If-None-Match", "\"1-3-0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(accountService, never()).getUserAccounts(anyLong());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void getAccountById_AdminAccess_Success() throws Exception {
@@ -125,6 +147,22 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.id").value(1L));
     }
 
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getBalanceAt_Success() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2024, 3, 1, 12, 0);
+        when(balanceSnapshotService.getBalanceAt("1234567890", at)).thenReturn(HistoricalBalanceDto.builder()
+                .accountNumber("1234567890")
+                .at(at)
+                .balance(BigDecimal.valueOf(750))
+                .build());
+
+        mockMvc.perform(get("/accounts/1234567890/balance")
+                        .param("at", "2024-03-01T12:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(750));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void deleteAccount_AdminAccess_Success() throws Exception {
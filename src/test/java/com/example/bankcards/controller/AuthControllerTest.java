@@ -3,6 +3,7 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.AuthRequest;
 import com.example.bankcards.dto.UserRegistrationDto;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ServiceBusyException;
 import com.example.bankcards.security.UserPrincipal;
 import com.example.bankcards.service.UserService;
 import com.example.bankcards.util.JwtUtils;
@@ -126,6 +127,19 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest()); // Изменено с isUnauthorized() на isBadRequest()
     }
 
+    @Test
+    void authenticateUser_HashingPoolFull_ServiceUnavailable() throws Exception {
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new ServiceBusyException("Too many sign-in requests, please retry shortly"));
+
+        mockMvc.perform(post("/auth/signin")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     private Authentication createMockAuthentication() {
 
         List<SimpleGrantedAuthority> authorities = Collections.singletonList(
@@ -28,6 +28,8 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -138,6 +140,7 @@ class CardControllerTest {
     @WithMockUser(username = "testuser", roles = "USER")
     void getMyCards_Success() throws Exception {
         when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(cardService.getUserCardsEtag(1L)).thenReturn("\"2-5-1-3-0\"");
 
         PageRequest pageRequest = PageRequest.of(0, 10);
         Page<CardDto> cardPage = new PageImpl<>(Arrays.asList(cardDto), pageRequest, 1);
@@ -151,7 +154,33 @@ class CardControllerTest {
                         .param("sortDirection", "desc"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content[0].id").value(1L))
-                .andExpect(jsonPath("$.content[0].maskedCardNumber").value("411111******1111"));
+                .andExpect(jsonPath("$.content[0].maskedCardNumber").value("411111******1111"))
+                .andExpect(header().string("ETag", "\"2-5-1-3-0\""));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getMyCards_Changed_ReturnsCards() throws Exception {
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(cardService.getUserCardsEtag(1L)).thenReturn("\"2-6-1-3-0\"");
+        when(cardService.getUserCardsPaginated(anyLong(), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(cardDto), PageRequest.of(0, 10), 1));
+
+        mockMvc.perform(get("/cards/my-cards").header("If-None-Match", "\"2-5-1-3-0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2-6-1-3-0\""));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getMyCards_Unchanged_ReturnsNotModified() throws Exception {
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(cardService.getUserCardsEtag(1L)).thenReturn("\"2-5-1-3-0\"");
+
+        mockMvc.perform(get("/cards/my-cards").header("If-None-Match", "\"2-5-1-3-0\""))
+                .andExpect(status().isNotModified());
+
+        verify(cardService, never()).getUserCardsPaginated(anyLong(), any(), any(Pageable.class));
     }
 
     @Test
@@ -5,7 +5,9 @@ import com.example.bankcards.entity.Account;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.MonthlySummaryService;
 import com.example.bankcards.service.SecurityService;
+import com.example.bankcards.service.TransactionExportService;
 import com.example.bankcards.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,9 +20,11 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -50,6 +54,12 @@ class TransactionControllerTest {
     @MockBean
     private CardRepository cardRepository;
 
+    @MockBean
+    private TransactionExportService transactionExportService;
+
+    @MockBean
+    private MonthlySummaryService monthlySummaryService;
+
     private TransactionDto transactionDto;
     private TransferRequest transferRequest;
     private CardToCardTransferRequest cardToCardRequest;
@@ -105,6 +115,139 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.type").value("TRANSFER"));
     }
 
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void transfer_Async_ReturnsAccepted() throws Exception {
+        transactionDto.setStatus(Transaction.TransactionStatus.PENDING);
+        when(transactionService.submitTransfer(any(TransferRequest.class))).thenReturn(transactionDto);
+
+        mockMvc.perform(post("/transactions/transfer")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.transactionId").value("TXN123456"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+
+        verify(transactionService, never()).transfer(any(TransferRequest.class));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getTransactionStatus_Success() throws Exception {
+        transactionDto.setStatus(Transaction.TransactionStatus.FAILED);
+        transactionDto.setFailureReason("Insufficient funds");
+        when(transactionService.getTransactionStatus("TXN123456")).thenReturn(transactionDto);
+
+        mockMvc.perform(get("/transactions/status/TXN123456"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("FAILED"))
+                .andExpect(jsonPath("$.failureReason").value("Insufficient funds"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getMonthlySummary_Success() throws Exception {
+        MonthlySummaryDto summary = MonthlySummaryDto.builder()
+                .month(YearMonth.of(2024, 1))
+                .accounts(List.of(AccountMonthlyTotalsDto.builder()
+                        .accountNumber("1234567890")
+                        .currency("USD")
+                        .inflow(BigDecimal.valueOf(250))
+                        .outflow(BigDecimal.valueOf(100))
+                        .transactionCount(3)
+                        .build()))
+                .build();
+        when(monthlySummaryService.getSummary(YearMonth.of(2024, 1))).thenReturn(summary);
+
+        mockMvc.perform(get("/transactions/summary").param("month", "2024-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.month").value("2024-01"))
+                .andExpect(jsonPath("$.accounts[0].inflow").value(250))
+                .andExpect(jsonPath("$.accounts[0].outflow").value(100));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void transfer_WithIdempotencyKey_ReplaysFirstResponse() throws Exception {
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(transactionService.transfer(any(TransferRequest.class))).thenReturn(transactionDto);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/transactions/transfer")
+                            .header("Idempotency-Key", "transfer-replay-key")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(transferRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(1L))
+                    .andExpect(jsonPath("$.transactionId").value("TXN123456"));
+        }
+
+        verify(transactionService, times(1)).transfer(any(TransferRequest.class));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void transfer_IdempotencyKeyReusedWithDifferentAmount_ReturnsBadRequest() throws Exception {
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(transactionService.transfer(any(TransferRequest.class))).thenReturn(transactionDto);
+
+        mockMvc.perform(post("/transactions/transfer")
+                        .header("Idempotency-Key", "transfer-mismatch-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferRequest)))
+                .andExpect(status().isOk());
+
+        transferRequest.setAmount(BigDecimal.valueOf(999.0));
+        mockMvc.perform(post("/transactions/transfer")
+                        .header("Idempotency-Key", "transfer-mismatch-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Idempotency-Key has already been used for a different request"));
+
+        verify(transactionService, times(1)).transfer(any(TransferRequest.class));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void batchTransfer_Success() throws Exception {
+        BatchTransferResponse response = BatchTransferResponse.of(List.of(
+                BatchTransferItemResult.builder().index(0).status(Transaction.TransactionStatus.COMPLETED)
+                        .transactionId("TXN1").build(),
+                BatchTransferItemResult.builder().index(1).status(Transaction.TransactionStatus.FAILED)
+                        .message("Currency mismatch between accounts").build()));
+        when(transactionService.batchTransfer(anyList())).thenReturn(response);
+
+        BatchTransferRequest batchRequest = new BatchTransferRequest();
+        batchRequest.setTransfers(List.of(transferRequest, transferRequest));
+
+        mockMvc.perform(post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.completed").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void batchTransfer_InvalidItem_ReturnsBadRequest() throws Exception {
+        TransferRequest invalid = new TransferRequest();
+        invalid.setFromAccountNumber("1234567890");
+
+        BatchTransferRequest batchRequest = new BatchTransferRequest();
+        batchRequest.setTransfers(List.of(transferRequest, invalid));
+
+        mockMvc.perform(post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isBadRequest());
+
+        verify(transactionService, never()).batchTransfer(anyList());
+    }
+
     @Test
     @WithMockUser(username = "testuser", roles = "USER")
     void cardToCardTransfer_Success() throws Exception {
@@ -146,12 +289,37 @@ class TransactionControllerTest {
         List<TransactionDto> transactions = Arrays.asList(transactionDto);
 
 
-        when(transactionService.getAccountTransactions(anyString())).thenReturn(transactions);
+        when(transactionService.getAccountTransactions(anyString(), isNull(), eq(50)))
+                .thenReturn(TransactionPageResponse.builder().items(transactions).nextCursor("next").build());
 
         mockMvc.perform(get("/transactions/admin/card/1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[0].transactionId").value("TXN123456"));
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.items[0].transactionId").value("TXN123456"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void exportTransactions_Csv_StreamsBody() throws Exception {
+        Account account = Account.builder().id(1L).accountNumber("1234567890").build();
+        when(transactionExportService.resolveAccount("1234567890")).thenReturn(account);
+        doAnswer(invocation -> {
+            invocation.<java.io.OutputStream>getArgument(5).write("id\n1\n".getBytes());
+            return null;
+        }).when(transactionExportService).export(eq(1L), eq("1234567890"), isNull(), isNull(),
+                eq(TransactionExportService.Format.CSV), any());
+
+        MvcResult result = mockMvc.perform(get("/transactions/export")
+                        .param("accountNumber", "1234567890")
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(content().string("id\n1\n"));
     }
 
     @Test
@@ -168,14 +336,17 @@ class TransactionControllerTest {
     @WithMockUser(roles = "ADMIN")
     void getTransactionsByDateRange_Success() throws Exception {
         List<TransactionDto> transactions = Arrays.asList(transactionDto);
-        when(transactionService.getTransactionsByDateRange(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(transactions);
+        when(transactionService.getTransactionsByDateRange(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class),
+                eq("abc"), eq(20)))
+                .thenReturn(TransactionPageResponse.builder().items(transactions).build());
 
         mockMvc.perform(get("/transactions/admin/user/1/date-range")
                         .param("startDate", "2024-01-01T00:00:00")
-                        .param("endDate", "2024-01-31T23:59:59"))
+                        .param("endDate", "2024-01-31T23:59:59")
+                        .param("cursor", "abc")
+                        .param("limit", "20"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(1L))
-                .andExpect(jsonPath("$[0].amount").value(100.0));
+                .andExpect(jsonPath("$.items[0].id").value(1L))
+                .andExpect(jsonPath("$.items[0].amount").value(100.0));
     }
 }
\ No newline at end of file
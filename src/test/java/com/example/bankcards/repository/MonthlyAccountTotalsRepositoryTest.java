@@ -0,0 +1,149 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.AccountMonthlyTotalsDto;
+import com.example.bankcards.repository.MonthlyAccountTotalsRepository.Increment;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the monthly totals queries against PostgreSQL migrated by Liquibase.
+ * Skipped when Docker is not available.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MonthlyAccountTotalsRepositoryTest {
+
+    private static final LocalDate MARCH = LocalDate.of(2024, 3, 1);
+    private static final LocalDate APRIL = LocalDate.of(2024, 4, 1);
+    private static final long USER_ID = 3000001L;
+    private static final long SHARDED_USER_ID = 3000002L;
+    private static final long DRIFTED_ID = 3000001L;
+    private static final long RECIPIENT_ID = 3000002L;
+    private static final long SENDER_ID = 3000003L;
+    private static final long SHARDED_ID = 3000004L;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("spring.liquibase.enabled", () -> "true");
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MonthlyAccountTotalsRepository totalsRepository;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, status, created_at, updated_at) "
+                + "VALUES (?, 'totals_user', 'totals_user@example.com', 'x', 'ACTIVE', LOCALTIMESTAMP, LOCALTIMESTAMP), "
+                + "(?, 'totals_sharded', 'totals_sharded@example.com', 'x', 'ACTIVE', LOCALTIMESTAMP, LOCALTIMESTAMP)",
+                USER_ID, SHARDED_USER_ID);
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, currency, type, status, user_id, "
+                + "created_at, balance_shards) VALUES "
+                + "(?, 'TOTL0000000000000001', 1000, 'RUB', 'CURRENT', 'ACTIVE', ?, LOCALTIMESTAMP, 0), "
+                + "(?, 'TOTL0000000000000002', 1000, 'RUB', 'CURRENT', 'ACTIVE', ?, LOCALTIMESTAMP, 0), "
+                + "(?, 'TOTL0000000000000003', 1000, 'RUB', 'CURRENT', 'ACTIVE', ?, LOCALTIMESTAMP, 0), "
+                + "(?, 'TOTL0000000000000004', 1000, 'RUB', 'CURRENT', 'ACTIVE', ?, LOCALTIMESTAMP, 4)",
+                DRIFTED_ID, USER_ID, RECIPIENT_ID, USER_ID, SENDER_ID, USER_ID, SHARDED_ID, SHARDED_USER_ID);
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, amount, currency, type, status, "
+                + "from_account_id, to_account_id, created_at) "
+                + "VALUES ('TOTLTXN1', 100, 'RUB', 'TRANSFER', 'COMPLETED', ?, ?, '2024-03-10 12:00:00')",
+                DRIFTED_ID, RECIPIENT_ID);
+        // The sender's outflow drifted; the recipient's row is right
+        totalsRepository.incrementAll(List.of(
+                new Increment(DRIFTED_ID, MARCH, "RUB", 0, BigDecimal.ZERO, new BigDecimal("70.00"), 1),
+                new Increment(RECIPIENT_ID, MARCH, "RUB", 0, new BigDecimal("100.00"), BigDecimal.ZERO, 1)));
+    }
+
+    @Test
+    void recomputeMonth_CorrectsDriftedAccountsWhileTransfersRun() throws Exception {
+        int corrected;
+        try (Connection holder = dataSource.getConnection(); Statement statement = holder.createStatement()) {
+            // A transfer still in flight: its transaction row and increments are not committed yet
+            holder.setAutoCommit(false);
+            statement.execute("INSERT INTO transactions (transaction_id, amount, currency, type, status, "
+                    + "from_account_id, to_account_id, created_at) VALUES ('TOTLTXN2', 50, 'RUB', 'TRANSFER', "
+                    + "'COMPLETED', " + SENDER_ID + ", " + RECIPIENT_ID + ", '2024-03-20 12:00:00')");
+            statement.execute("INSERT INTO monthly_account_totals (account_id, month, currency, shard_no, inflow, "
+                    + "outflow, transaction_count) VALUES (" + SENDER_ID + ", '2024-03-01', 'RUB', 0, 0, 50, 1) "
+                    + "ON CONFLICT (account_id, month, currency, shard_no) DO UPDATE SET "
+                    + "outflow = monthly_account_totals.outflow + 50, "
+                    + "transaction_count = monthly_account_totals.transaction_count + 1");
+            statement.execute("UPDATE monthly_account_totals SET inflow = inflow + 50, "
+                    + "transaction_count = transaction_count + 1 WHERE account_id = " + RECIPIENT_ID
+                    + " AND month = '2024-03-01'");
+
+            corrected = CompletableFuture.supplyAsync(() -> totalsRepository.recomputeMonth(MARCH))
+                    .get(10, TimeUnit.SECONDS);
+
+            holder.commit();
+        }
+
+        assertEquals(1, corrected);
+        assertTotals(DRIFTED_ID, "0.00", "100.00", 1);
+        assertTotals(RECIPIENT_ID, "150.00", "0.00", 2);
+        assertTotals(SENDER_ID, "0.00", "50.00", 1);
+    }
+
+    @Test
+    void findByUserIdAndMonth_SumsShardRows() {
+        totalsRepository.incrementAll(List.of(
+                new Increment(SHARDED_ID, APRIL, "RUB", 0, BigDecimal.ZERO, new BigDecimal("5.00"), 1),
+                new Increment(SHARDED_ID, APRIL, "RUB", 1, new BigDecimal("10.00"), BigDecimal.ZERO, 1),
+                new Increment(SHARDED_ID, APRIL, "RUB", 3, new BigDecimal("20.00"), BigDecimal.ZERO, 2)));
+
+        List<AccountMonthlyTotalsDto> totals = totalsRepository.findByUserIdAndMonth(SHARDED_USER_ID, APRIL);
+
+        assertEquals(1, totals.size());
+        assertEquals(0, new BigDecimal("30.00").compareTo(totals.get(0).getInflow()));
+        assertEquals(0, new BigDecimal("5.00").compareTo(totals.get(0).getOutflow()));
+        assertEquals(4, totals.get(0).getTransactionCount());
+    }
+
+    private void assertTotals(long accountId, String inflow, String outflow, long transactionCount) {
+        AccountMonthlyTotalsDto totals = totalsRepository.findByUserIdAndMonth(USER_ID, MARCH).stream()
+                .filter(row -> row.getAccountNumber().equals("TOTL000000000000000" + (accountId - 3000000L)))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(0, new BigDecimal(inflow).compareTo(totals.getInflow()), "inflow of " + accountId);
+        assertEquals(0, new BigDecimal(outflow).compareTo(totals.getOutflow()), "outflow of " + accountId);
+        assertEquals(transactionCount, totals.getTransactionCount(), "transactions of " + accountId);
+    }
+}
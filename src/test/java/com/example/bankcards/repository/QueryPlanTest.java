@@ -0,0 +1,408 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls every repository query against PostgreSQL migrated by Liquibase and seeded with
+ * {@code db/query-plan-seed.sql}, records the statements the driver receives together with their
+ * bound parameters, and fails when {@code EXPLAIN} of any of them falls back to a sequential scan.
+ * The calls run in transactions that are rolled back; a Spring Data query method without a call in
+ * {@link #calls()} fails the suite too. Skipped when Docker is not available.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final long USER_ID = 1000042L;
+    private static final long ACCOUNT_ID = 1000042L;
+    private static final long SHARDED_ACCOUNT_ID = 1000100L;
+    private static final String ACCOUNT_NUMBER = "PLAN0000000000000042";
+    private static final List<Long> ACCOUNT_IDS = List.of(1000041L, 1000042L, 1000043L);
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final PageRequest NEWEST_CARDS = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+    // Read every row of their table by design; user_deletions only holds the last token lifetime
+    private static final Set<String> FULL_SCANS = Set.of(
+            "UserRepository.findAllWithAccountsAndCards",
+            "LedgerCheckpointRepository.advanceTo",
+            "UserDeletionRepository.findUserIdsDeletedAfter");
+
+    private static final ThreadLocal<List<RecordedStatement>> RECORDED = new ThreadLocal<>();
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("spring.liquibase.enabled", () -> "true");
+        // Keeps the recovery of stale PENDING transfers from completing seeded rows mid-test
+        registry.add("app.transfer.async.recovery-interval-ms", () -> "3600000");
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                            ? proxy(DataSource.class, dataSource, QueryPlanTest::recordConnection)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void seed() {
+        new ResourceDatabasePopulator(new ClassPathResource("db/query-plan-seed.sql")).execute(dataSource);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("calls")
+    void query_DoesNotScanWholeTable(String name, QueryCall<?> call) throws SQLException {
+        List<RecordedStatement> statements = record(call);
+        assertFalse(statements.isEmpty(), () -> name + " sent no statement");
+
+        for (RecordedStatement statement : statements) {
+            if (!statement.isExplainable()) {
+                continue;
+            }
+            List<String> plan = explain(statement);
+            assertTrue(plan.stream().noneMatch(line -> line.contains("Seq Scan")),
+                    () -> name + " falls back to a sequential scan for\n" + statement.sql() + "\n" + String.join("\n", plan));
+        }
+    }
+
+    @Test
+    void everyRepositoryQuery_HasPlanCheck() {
+        Set<String> checked = calls()
+                .map(arguments -> ((String) arguments.get()[0]).split("#")[0])
+                .collect(Collectors.toSet());
+
+        List<String> missing = new ArrayList<>();
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRepositoryInformationFor(domainType).orElseThrow();
+            for (Method method : information.getQueryMethods()) {
+                String name = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                if (!checked.contains(name) && !FULL_SCANS.contains(name)) {
+                    missing.add(name);
+                }
+            }
+        }
+
+        assertTrue(missing.isEmpty(), () -> "No plan check in QueryPlanTest.calls() for " + missing);
+    }
+
+    // Arguments match rows of query-plan-seed.sql, so the planner sees realistic selectivity
+    static Stream<Arguments> calls() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate firstOfMonth = LocalDate.now().withDayOfMonth(1);
+        return Stream.of(
+                call("AccountRepository.findByAccountNumber", AccountRepository.class,
+                        r -> r.findByAccountNumber(ACCOUNT_NUMBER)),
+                call("AccountRepository.findByUser", AccountRepository.class,
+                        r -> r.findByUser(User.builder().id(USER_ID).build())),
+                call("AccountRepository.findByUserId", AccountRepository.class, r -> r.findByUserId(USER_ID)),
+                call("AccountRepository.findActiveAccountsByUserId", AccountRepository.class,
+                        r -> r.findActiveAccountsByUserId(USER_ID)),
+                call("AccountRepository.existsByAccountNumber", AccountRepository.class,
+                        r -> r.existsByAccountNumber(ACCOUNT_NUMBER)),
+                call("AccountRepository.findIdsByUserId", AccountRepository.class, r -> r.findIdsByUserId(USER_ID)),
+                call("AccountRepository.findAccountNumberById", AccountRepository.class,
+                        r -> r.findAccountNumberById(ACCOUNT_ID)),
+                call("AccountRepository.findIdByAccountNumber", AccountRepository.class,
+                        r -> r.findIdByAccountNumber(ACCOUNT_NUMBER)),
+                call("AccountRepository.findByIdForUpdate", AccountRepository.class,
+                        r -> r.findByIdForUpdate(ACCOUNT_ID)),
+                call("AccountRepository.findAllByAccountNumberInForUpdate", AccountRepository.class,
+                        r -> r.findAllByAccountNumberInForUpdate(List.of(ACCOUNT_NUMBER, "PLAN0000000000000043"))),
+                call("AccountRepository.findByBalanceShardsGreaterThan", AccountRepository.class,
+                        r -> r.findByBalanceShardsGreaterThan(0)),
+                call("AccountRepository.findListingVersionByUserId", AccountRepository.class,
+                        r -> r.findListingVersionByUserId(USER_ID).fingerprint()),
+
+                call("CardRepository.findByAccountId", CardRepository.class, r -> r.findByAccountId(ACCOUNT_ID)),
+                call("CardRepository.findByAccountIdIn", CardRepository.class, r -> r.findByAccountIdIn(ACCOUNT_IDS)),
+                call("CardRepository.findByAccountUserId", CardRepository.class, r -> r.findByAccountUserId(USER_ID)),
+                call("CardRepository.findByAccountUserId#page", CardRepository.class,
+                        r -> r.findByAccountUserId(USER_ID, NEWEST_CARDS)),
+                call("CardRepository.findByAccountUserIdAndStatus", CardRepository.class,
+                        r -> r.findByAccountUserIdAndStatus(USER_ID, Card.CardStatus.ACTIVE, NEWEST_CARDS)),
+                call("CardRepository.findAllWithFilters", CardRepository.class,
+                        r -> r.findAllWithFilters(USER_ID, null, NEWEST_CARDS)),
+                call("CardRepository.existsByCardNumber", CardRepository.class,
+                        r -> r.existsByCardNumber("PLANCARD42")),
+                call("CardRepository.findExpiredActiveCards", CardRepository.class,
+                        CardRepository::findExpiredActiveCards),
+                call("CardRepository.findListingVersionByUserId", CardRepository.class,
+                        r -> r.findListingVersionByUserId(USER_ID).getCount()),
+                call("CardRepository.findAccountIdById", CardRepository.class, r -> r.findAccountIdById(1000042L)),
+                call("CardRepository.findOwnerIdById", CardRepository.class, r -> r.findOwnerIdById(1000042L)),
+                call("CardRepository.findAccountIdsWithActiveCards", CardRepository.class,
+                        r -> r.findAccountIdsWithActiveCards(ACCOUNT_IDS)),
+                call("CardRepository.findById", CardRepository.class, r -> r.findById(1000042L)),
+
+                call("TransactionRepository.findByFromAccountIdOrToAccountId", TransactionRepository.class,
+                        r -> r.findByFromAccountIdOrToAccountId(ACCOUNT_ID, ACCOUNT_ID)),
+                call("TransactionRepository.findPageIds", TransactionRepository.class,
+                        r -> r.findPageIds(List.of(1000041L, 1000042L), EPOCH, END_OF_TIME, Long.MAX_VALUE, 51)),
+                call("TransactionRepository.findDtosByIdIn", TransactionRepository.class,
+                        r -> r.findDtosByIdIn(ACCOUNT_IDS)),
+                call("TransactionRepository.streamOutgoing", TransactionRepository.class,
+                        r -> consume(r.streamOutgoing(ACCOUNT_ID, EPOCH, END_OF_TIME))),
+                call("TransactionRepository.streamIncoming", TransactionRepository.class,
+                        r -> consume(r.streamIncoming(ACCOUNT_ID, EPOCH, END_OF_TIME))),
+                call("TransactionRepository.findByTransactionId", TransactionRepository.class,
+                        r -> r.findByTransactionId("PLANTXN42")),
+                call("TransactionRepository.findByIdForUpdate", TransactionRepository.class,
+                        r -> r.findByIdForUpdate(1000042L)),
+                call("TransactionRepository.findPendingIdsCreatedBefore", TransactionRepository.class,
+                        r -> r.findPendingIdsCreatedBefore(now.minusMinutes(1), PageRequest.of(0, 100))),
+                call("TransactionRepository.sumCardSpendingSince", TransactionRepository.class,
+                        r -> r.sumCardSpendingSince(LocalDate.now().atStartOfDay())),
+
+                call("UserRepository.findByUsername", UserRepository.class, r -> r.findByUsername("plan_user_42")),
+                call("UserRepository.findByEmail", UserRepository.class,
+                        r -> r.findByEmail("plan_user_42@example.com")),
+                call("UserRepository.existsByUsername", UserRepository.class, r -> r.existsByUsername("plan_user_42")),
+                call("UserRepository.existsByEmail", UserRepository.class,
+                        r -> r.existsByEmail("plan_user_42@example.com")),
+                call("UserRepository.findByIdWithAccountsAndCards", UserRepository.class,
+                        r -> r.findByIdWithAccountsAndCards(USER_ID)),
+                call("UserRepository.findIdsByStatusNot", UserRepository.class,
+                        r -> r.findIdsByStatusNot(User.UserStatus.ACTIVE)),
+                call("UserRepository.findByUpdatedAtAfter", UserRepository.class,
+                        r -> r.findByUpdatedAtAfter(now.minusDays(1))),
+                call("UserDeletionRepository.deleteDeletedBefore", UserDeletionRepository.class,
+                        r -> r.deleteDeletedBefore(now.minusDays(1))),
+
+                call("LedgerEntryRepository.sumByAccountId", LedgerEntryRepository.class,
+                        r -> r.sumByAccountId(ACCOUNT_ID)),
+                call("LedgerEntryRepository.sumByAccountIdCreatedAfter", LedgerEntryRepository.class,
+                        r -> r.sumByAccountIdCreatedAfter(ACCOUNT_ID, now.minusDays(1))),
+                call("LedgerEntryRepository.sumByAccountIdCreatedBetween", LedgerEntryRepository.class,
+                        r -> r.sumByAccountIdCreatedBetween(ACCOUNT_ID, now.minusDays(2), now.minusDays(1))),
+                call("LedgerEntryRepository.sumByAccountIdCreatedFrom", LedgerEntryRepository.class,
+                        r -> r.sumByAccountIdCreatedFrom(ACCOUNT_ID, LocalDate.now().atStartOfDay(), now)),
+
+                call("IdempotencyKeyRepository.findByUserIdAndIdempotencyKey", IdempotencyKeyRepository.class,
+                        r -> r.findByUserIdAndIdempotencyKey(USER_ID, "plan-key-41")),
+                call("IdempotencyKeyRepository.updateResponse", IdempotencyKeyRepository.class,
+                        r -> r.updateResponse(1000042L, "{\"total\":0}")),
+                call("IdempotencyKeyRepository.deleteCreatedBefore", IdempotencyKeyRepository.class,
+                        r -> r.deleteCreatedBefore(now.minusDays(13).minusHours(20))),
+
+                call("AccountBalanceSnapshotRepository.findLatestBefore", AccountBalanceSnapshotRepository.class,
+                        r -> r.findLatestBefore(ACCOUNT_ID, LocalDate.now())),
+                call("MonthlyAccountTotalsRepository.findByUserIdAndMonth", MonthlyAccountTotalsRepository.class,
+                        r -> r.findByUserIdAndMonth(USER_ID, firstOfMonth)),
+                call("MonthlyAccountTotalsRepository.recomputeMonth", MonthlyAccountTotalsRepository.class,
+                        r -> r.recomputeMonth(firstOfMonth.minusMonths(1))),
+                call("AccountBalanceShardRepository.credit", AccountBalanceShardRepository.class,
+                        r -> r.credit(SHARDED_ACCOUNT_ID, 3, BigDecimal.ONE)),
+                call("AccountBalanceShardRepository.drain", AccountBalanceShardRepository.class,
+                        r -> r.drain(SHARDED_ACCOUNT_ID)),
+                call("AccountBalanceShardRepository.sumBalance", AccountBalanceShardRepository.class,
+                        r -> r.sumBalance(SHARDED_ACCOUNT_ID)));
+    }
+
+    private static <R> Arguments call(String name, Class<R> repositoryType, Consumer<R> invocation) {
+        return Arguments.of(name, new QueryCall<>(repositoryType, invocation));
+    }
+
+    private static void consume(Stream<?> stream) {
+        try (stream) {
+            stream.forEach(row -> { });
+        }
+    }
+
+    private <R> List<RecordedStatement> record(QueryCall<R> call) {
+        R repository = applicationContext.getBean(call.repositoryType());
+        List<RecordedStatement> statements = new ArrayList<>();
+        RECORDED.set(statements);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                call.invocation().accept(repository);
+            });
+        } finally {
+            RECORDED.remove();
+        }
+        return statements;
+    }
+
+    // Bound with the same setter calls as the recorded statement, so the plan is the one PostgreSQL chose
+    private List<String> explain(RecordedStatement statement) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            for (ParameterBinding binding : statement.bindings()) {
+                binding.applyTo(explain);
+            }
+            try (ResultSet rows = explain.executeQuery()) {
+                while (rows.next()) {
+                    plan.add(rows.getString(1));
+                }
+            }
+        }
+        return plan;
+    }
+
+    private static Object recordConnection(Object target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        return method.getName().equals("getConnection")
+                ? proxy(Connection.class, result, QueryPlanTest::recordStatements)
+                : result;
+    }
+
+    private static Object recordStatements(Object target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        return switch (method.getName()) {
+            case "prepareStatement" -> proxy(PreparedStatement.class, result, new StatementRecorder((String) args[0]));
+            case "prepareCall" -> proxy(CallableStatement.class, result, new StatementRecorder((String) args[0]));
+            case "createStatement" -> proxy(Statement.class, result, new StatementRecorder(null));
+            default -> result;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        return (T) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(target, method, args));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    // Collects parameter setters and adds the statement to the current recording when it is executed
+    private static class StatementRecorder implements Handler {
+
+        private final String sql;
+        private final List<ParameterBinding> bindings = new ArrayList<>();
+
+        StatementRecorder(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public Object handle(Object target, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && method.getParameterCount() >= 2 && method.getParameterTypes()[0] == int.class) {
+                bindings.add(new ParameterBinding(method, args));
+            } else if (name.equals("clearParameters")) {
+                bindings.clear();
+            } else if (name.startsWith("execute") && RECORDED.get() != null) {
+                String executed = sql != null ? sql : args != null ? (String) args[0] : null;
+                if (executed != null) {
+                    RECORDED.get().add(new RecordedStatement(executed, List.copyOf(bindings)));
+                }
+            }
+            return invoke(target, method, args);
+        }
+    }
+
+    record QueryCall<R>(Class<R> repositoryType, Consumer<R> invocation) {
+    }
+
+    record ParameterBinding(Method setter, Object[] args) {
+
+        void applyTo(PreparedStatement statement) throws SQLException {
+            try {
+                setter.invoke(statement, args);
+            } catch (ReflectiveOperationException e) {
+                throw new SQLException("Cannot replay " + setter.getName(), e);
+            }
+        }
+    }
+
+    record RecordedStatement(String sql, List<ParameterBinding> bindings) {
+
+        boolean isExplainable() {
+            String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+            return Stream.of("select", "insert", "update", "delete", "with").anyMatch(statement::startsWith);
+        }
+    }
+}
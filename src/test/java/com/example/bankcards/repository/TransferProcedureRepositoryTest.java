@@ -0,0 +1,110 @@
+package com.example.bankcards.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@code bank_transfer} (PROCEDURE mode) against PostgreSQL migrated by Liquibase.
+ * Skipped when Docker is not available.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransferProcedureRepositoryTest {
+
+    private static final long USER_ID = 2000001L;
+    private static final long FROM_ID = 2000001L;
+    private static final long SHARDED_TO_ID = 2000002L;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.driver-class-name", POSTGRES::getDriverClassName);
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("spring.liquibase.enabled", () -> "true");
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransferProcedureRepository transferProcedureRepository;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, status, created_at, updated_at) "
+                + "VALUES (?, 'procedure_user', 'procedure_user@example.com', 'x', 'ACTIVE', LOCALTIMESTAMP, LOCALTIMESTAMP)",
+                USER_ID);
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, currency, type, status, user_id, "
+                + "created_at, balance_shards) VALUES (?, 'PROC0000000000000001', 1000, 'RUB', 'CURRENT', 'ACTIVE', ?, "
+                + "LOCALTIMESTAMP, 0), (?, 'PROC0000000000000002', 0, 'RUB', 'CURRENT', 'ACTIVE', ?, LOCALTIMESTAMP, 4)",
+                FROM_ID, USER_ID, SHARDED_TO_ID, USER_ID);
+        jdbcTemplate.update("INSERT INTO account_balance_shards (account_id, shard_no, balance) "
+                + "SELECT ?, s, 0 FROM generate_series(0, 3) s", SHARDED_TO_ID);
+        jdbcTemplate.update("INSERT INTO cards (id, encrypted_card_number, expiry_date, encrypted_cvv, card_holder_name, "
+                + "type, status, account_id, created_at) VALUES (?, 'PROCCARD1', CURRENT_DATE + 365, '000', "
+                + "'PROCEDURE USER', 'DEBIT', 'ACTIVE', ?, LOCALTIMESTAMP)", 2000001L, FROM_ID);
+    }
+
+    @Test
+    void transfer_ShardedTarget_CreditsShardWithoutLockingTargetRow() throws Exception {
+        long targetVersion = jdbcTemplate.queryForObject("SELECT version FROM accounts WHERE id = ?",
+                Long.class, SHARDED_TO_ID);
+
+        TransferProcedureRepository.TransferResult result;
+        try (Connection holder = dataSource.getConnection(); Statement statement = holder.createStatement()) {
+            // Another session keeps the target row locked the way a balance update does, for the whole
+            // transfer; the foreign keys from transactions and ledger_entries only need KEY SHARE
+            holder.setAutoCommit(false);
+            statement.execute("SELECT 1 FROM accounts WHERE id = " + SHARDED_TO_ID + " FOR NO KEY UPDATE");
+
+            result = CompletableFuture.supplyAsync(() -> transferProcedureRepository.transfer(
+                            "PROC0000000000000001", "PROC0000000000000002", new BigDecimal("100.00"),
+                            "to sharded", "PROCTXN1", USER_ID))
+                    .get(10, TimeUnit.SECONDS);
+
+            holder.rollback();
+        }
+
+        assertEquals("COMPLETED", result.status());
+        assertEquals(0, new BigDecimal("900.00").compareTo(result.fromBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(jdbcTemplate.queryForObject(
+                "SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, SHARDED_TO_ID)));
+        assertEquals(targetVersion, jdbcTemplate.queryForObject(
+                "SELECT version FROM accounts WHERE id = ?", Long.class, SHARDED_TO_ID));
+        assertEquals(0, new BigDecimal("100.00").compareTo(jdbcTemplate.queryForObject(
+                "SELECT SUM(balance) FROM account_balance_shards WHERE account_id = ?", BigDecimal.class, SHARDED_TO_ID)));
+        assertEquals(0, new BigDecimal("100.00").compareTo(jdbcTemplate.queryForObject(
+                "SELECT SUM(inflow) FROM monthly_account_totals WHERE account_id = ?", BigDecimal.class, SHARDED_TO_ID)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_RunOnPool() {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(), 1, 1);
+
+        assertEquals("{plain}secret", encoder.encode("secret"));
+        assertTrue(encoder.matches("secret", "{plain}secret"));
+        assertFalse(encoder.matches("other", "{plain}secret"));
+
+        BoundedPasswordEncoder.Stats stats = encoder.getStats();
+        assertEquals(3, stats.completed());
+        assertEquals(0, stats.rejected());
+    }
+
+    @Test
+    void encode_PoolAndQueueFull_RejectedAtOnce() throws Exception {
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(), 1, 1);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        awaitActive(1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        awaitQueued(1);
+
+        assertThrows(ServiceBusyException.class, () -> encoder.encode("third"));
+        assertEquals(1, encoder.getStats().rejected());
+
+        release.countDown();
+        assertEquals("{plain}first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("{plain}second", queued.get(5, TimeUnit.SECONDS));
+        assertTrue(encoder.getStats().maxQueueWaitMs() > 0);
+    }
+
+    private void awaitActive(int active) throws InterruptedException {
+        for (int i = 0; i < 500 && encoder.getStats().active() < active; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitQueued(int queued) throws InterruptedException {
+        for (int i = 0; i < 500 && encoder.getStats().queued() < queued; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class PlainEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "{plain}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+
+    private class BlockingEncoder extends PlainEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.encode(rawPassword);
+        }
+    }
+}
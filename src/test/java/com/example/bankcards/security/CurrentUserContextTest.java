@@ -0,0 +1,99 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserContextTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private CurrentUserContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = new CurrentUserContext(userRepository);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void get_UserPrincipal_ResolvedWithoutDatabase() {
+        UserPrincipal principal = new UserPrincipal(7L, "testuser", "test@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        authenticate(principal, "ROLE_ADMIN");
+
+        CurrentUserContext.CurrentUser user = context.get();
+
+        assertEquals(7L, user.id());
+        assertEquals("testuser", user.username());
+        assertTrue(user.isAdmin());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void get_OtherPrincipal_LooksUpOncePerRequest() {
+        authenticate("testuser", "ROLE_USER");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(User.builder().id(7L).build()));
+
+        CurrentUserContext.CurrentUser first = context.get();
+        CurrentUserContext.CurrentUser second = context.get();
+
+        assertSame(first, second);
+        assertEquals(7L, second.id());
+        assertFalse(second.isAdmin());
+        verify(userRepository, times(1)).findByUsername("testuser");
+    }
+
+    @Test
+    void get_AuthenticationReplaced_ResolvedAgain() {
+        authenticate(new UserPrincipal(7L, "first", null, null, List.of()));
+        context.get();
+
+        authenticate(new UserPrincipal(8L, "second", null, null, List.of()));
+
+        assertEquals(8L, context.get().id());
+    }
+
+    @Test
+    void get_OutsideRequest_ResolvedOnEveryCall() {
+        RequestContextHolder.resetRequestAttributes();
+        authenticate("testuser", "ROLE_USER");
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
+
+        assertNull(context.get().id());
+        assertNull(context.get().id());
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+
+    private void authenticate(Object principal, String... roles) {
+        List<SimpleGrantedAuthority> authorities = Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+    }
+}
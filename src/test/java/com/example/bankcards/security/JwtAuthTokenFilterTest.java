@@ -0,0 +1,106 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.service.TokenRevocationService;
+import com.example.bankcards.service.UserDetailsServiceImpl;
+import com.example.bankcards.util.JwtUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthTokenFilterTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private JwtUtils jwtUtils;
+    private JwtAuthTokenFilter filter;
+    private UserPrincipal user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils("testSecretKeyForTestingPurposesOnly12345", 60_000, 100);
+        filter = new JwtAuthTokenFilter(jwtUtils, userDetailsService, tokenRevocationService);
+        user = new UserPrincipal(7L, "testuser", "test@example.com", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void claimsMode_AuthenticatesWithoutLoadingUser() throws Exception {
+        when(tokenRevocationService.isEnabled()).thenReturn(true);
+
+        Authentication authentication = filter(token());
+
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("testuser", principal.getUsername());
+        assertEquals("test@example.com", principal.getEmail());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")), List.copyOf(authentication.getAuthorities()));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void claimsMode_RevokedUser_NotAuthenticated() throws Exception {
+        when(tokenRevocationService.isEnabled()).thenReturn(true);
+        when(tokenRevocationService.isRevoked(7L)).thenReturn(true);
+
+        assertNull(filter(token()));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void claimsMode_StaleToken_LoadsUser() throws Exception {
+        when(tokenRevocationService.isEnabled()).thenReturn(true);
+        when(tokenRevocationService.isStale(anyLong(), any())).thenReturn(true);
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(user);
+
+        Authentication authentication = filter(token());
+
+        assertSame(user, authentication.getPrincipal());
+    }
+
+    @Test
+    void claimsModeDisabled_LoadsUser() throws Exception {
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(user);
+
+        Authentication authentication = filter(token());
+
+        assertSame(user, authentication.getPrincipal());
+    }
+
+    private String token() {
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private Authentication filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
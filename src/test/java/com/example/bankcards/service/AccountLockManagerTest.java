@@ -0,0 +1,104 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    private final AccountLockManager lockManager = new AccountLockManager(true, 64, 5000);
+
+    @Test
+    void withAccountLocks_SerializesTransfersOnSameAccount() throws Exception {
+        int threads = 8;
+        int iterations = 2000;
+        long[] balance = {0};
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long counterparty = 100 + t;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    lockManager.withAccountLocks(1L, counterparty, () -> balance[0]++);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals((long) threads * iterations, balance[0]);
+    }
+
+    @Test
+    void withAccountLocks_UnrelatedAccountsRunInParallel() throws Exception {
+        long first = 1L;
+        long second = 2L;
+        while (lockManager.stripeFor(second) == lockManager.stripeFor(first)) {
+            second++;
+        }
+        long other = second;
+
+        CountDownLatch bothInside = new CountDownLatch(2);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<Boolean> a = pool.submit(() -> lockManager.withAccountLocks(first, first, () -> awaitQuietly(bothInside)));
+        Future<Boolean> b = pool.submit(() -> lockManager.withAccountLocks(other, other, () -> awaitQuietly(bothInside)));
+
+        assertTrue(a.get(10, TimeUnit.SECONDS));
+        assertTrue(b.get(10, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    void getContendedStripes_ReportsWaitingThreads() throws Exception {
+        CountDownLatch holderInside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<?> holder = pool.submit(() -> lockManager.withAccountLocks(7L, 7L, () -> {
+            holderInside.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        assertTrue(holderInside.await(5, TimeUnit.SECONDS));
+
+        Future<?> waiter = pool.submit(() -> lockManager.withAccountLocks(7L, 8L, () -> true));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (lockManager.getContendedStripes().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        waiter.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        AccountLockManager.StripeStats stats = lockManager.getContendedStripes().get(0);
+        assertEquals(lockManager.stripeFor(7L), stats.stripe());
+        assertEquals(1, stats.contended());
+        assertEquals(2, stats.acquisitions());
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -31,6 +31,12 @@ class AccountServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private AccountShardService accountShardService;
+
+    @Mock
+    private LedgerService ledgerService;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -57,6 +63,9 @@ class AccountServiceImplTest {
                 .createdAt(LocalDateTime.now())
                 .user(user)
                 .build();
+
+        lenient().when(accountShardService.getVisibleBalance(any(Account.class)))
+                .thenAnswer(invocation -> invocation.<Account>getArgument(0).getBalance());
     }
 
     @Test
@@ -81,6 +90,7 @@ class AccountServiceImplTest {
         assertEquals(1L, result.getId());
         assertNotNull(result.getAccountNumber());
         verify(accountRepository, times(1)).save(any(Account.class));
+        verify(ledgerService).openAccount(account);
     }
 
     @Test
@@ -0,0 +1,121 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.repository.AccountBalanceShardRepository;
+import com.example.bankcards.repository.AccountRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountShardServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountBalanceShardRepository shardRepository;
+
+    private AccountShardService shardService;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        shardService = new AccountShardService(accountRepository, shardRepository, 16);
+        account = Account.builder()
+                .id(1L)
+                .balance(BigDecimal.valueOf(1000))
+                .build();
+    }
+
+    @Test
+    void credit_PicksShardWithinRange() {
+        account.setBalanceShards(4);
+        ArgumentCaptor<Integer> shardNo = ArgumentCaptor.forClass(Integer.class);
+
+        for (int i = 0; i < 50; i++) {
+            shardService.credit(account, BigDecimal.TEN);
+        }
+
+        verify(shardRepository, times(50)).credit(eq(1L), shardNo.capture(), eq(BigDecimal.TEN));
+        assertTrue(shardNo.getAllValues().stream().allMatch(n -> n >= 0 && n < 4));
+    }
+
+    @Test
+    void consolidate_AddsDrainedShardsToBalance() {
+        account.setBalanceShards(4);
+        when(shardRepository.drain(1L)).thenReturn(BigDecimal.valueOf(250));
+
+        shardService.consolidate(account);
+
+        assertEquals(BigDecimal.valueOf(1250), account.getBalance());
+    }
+
+    @Test
+    void consolidate_NotSharded_SkipsShardTable() {
+        shardService.consolidate(account);
+
+        verifyNoInteractions(shardRepository);
+        assertEquals(BigDecimal.valueOf(1000), account.getBalance());
+    }
+
+    @Test
+    void getVisibleBalance_IncludesShards() {
+        account.setBalanceShards(2);
+        when(shardRepository.sumBalance(1L)).thenReturn(BigDecimal.valueOf(75));
+
+        assertEquals(BigDecimal.valueOf(1075), shardService.getVisibleBalance(account));
+    }
+
+    @Test
+    void enableSharding_CreatesMissingShardsAndMarksAccountSharded() {
+        account.setBalanceShards(2);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+
+        shardService.enableSharding(1L, 8);
+
+        verify(shardRepository).createShards(1L, 2, 8);
+        assertEquals(8, account.getBalanceShards());
+        assertTrue(shardService.isSharded(1L));
+    }
+
+    @Test
+    void enableSharding_FewerShards_ThrowsException() {
+        account.setBalanceShards(8);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+
+        assertThrows(IllegalArgumentException.class, () -> shardService.enableSharding(1L, 4));
+        verify(shardRepository, never()).createShards(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void enableSharding_AboveMaximum_ThrowsException() {
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(account));
+
+        assertThrows(IllegalArgumentException.class, () -> shardService.enableSharding(1L, 17));
+    }
+
+    @Test
+    void refresh_LoadsShardedAccounts() {
+        AccountRepository.ShardedAccount sharded = mock(AccountRepository.ShardedAccount.class);
+        when(sharded.getId()).thenReturn(5L);
+        when(sharded.getBalanceShards()).thenReturn(4);
+        when(accountRepository.findByBalanceShardsGreaterThan(0)).thenReturn(List.of(sharded));
+
+        shardService.refresh();
+
+        assertTrue(shardService.isSharded(5L));
+        assertFalse(shardService.isSharded(1L));
+    }
+}
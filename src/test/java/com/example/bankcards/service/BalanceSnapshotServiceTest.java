@@ -0,0 +1,112 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.AccountBalanceSnapshotRepository;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSnapshotServiceTest {
+
+    @Mock
+    private AccountBalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private SecurityService securityService;
+
+    private BalanceSnapshotService snapshotService;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new BalanceSnapshotService(snapshotRepository, ledgerEntryRepository, ledgerService,
+                accountRepository, securityService, 300);
+        account = Account.builder()
+                .id(1L)
+                .accountNumber("1234567890")
+                .createdAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .user(User.builder().id(5L).build())
+                .build();
+    }
+
+    @Test
+    void getBalanceAt_AddsEntriesSinceNearestSnapshot() {
+        LocalDateTime at = LocalDateTime.of(2024, 3, 10, 15, 30);
+        when(accountRepository.findByAccountNumber("1234567890")).thenReturn(Optional.of(account));
+        when(snapshotRepository.findLatestBefore(1L, LocalDate.of(2024, 3, 10))).thenReturn(Optional.of(
+                new AccountBalanceSnapshotRepository.BalanceSnapshot(LocalDate.of(2024, 3, 9), BigDecimal.valueOf(500))));
+        when(ledgerEntryRepository.sumByAccountIdCreatedFrom(1L, LocalDateTime.of(2024, 3, 10, 0, 0), at))
+                .thenReturn(BigDecimal.valueOf(-120));
+
+        assertEquals(BigDecimal.valueOf(380), snapshotService.getBalanceAt("1234567890", at).getBalance());
+        verify(securityService).checkUserAccess(5L);
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    void getBalanceAt_NoEarlierSnapshot_WalksFromLedgerCheckpoint() {
+        LocalDateTime at = LocalDateTime.of(2024, 3, 10, 15, 30);
+        when(accountRepository.findByAccountNumber("1234567890")).thenReturn(Optional.of(account));
+        when(snapshotRepository.findLatestBefore(1L, LocalDate.of(2024, 3, 10))).thenReturn(Optional.empty());
+        when(ledgerService.getLedgerBalanceAt(1L, at)).thenReturn(BigDecimal.valueOf(42));
+
+        assertEquals(BigDecimal.valueOf(42), snapshotService.getBalanceAt("1234567890", at).getBalance());
+    }
+
+    @Test
+    void getBalanceAt_BeforeAccountOpened_ThrowsException() {
+        when(accountRepository.findByAccountNumber("1234567890")).thenReturn(Optional.of(account));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> snapshotService.getBalanceAt("1234567890", LocalDateTime.of(2023, 12, 31, 0, 0)));
+        verifyNoInteractions(snapshotRepository);
+    }
+
+    @Test
+    void snapshotClosedDays_CatchesUpEveryDayAfterLastSnapshot() {
+        LocalDate lastClosedDay = LocalDateTime.now().minusSeconds(300).toLocalDate().minusDays(1);
+        when(snapshotRepository.findLastDay()).thenReturn(Optional.of(lastClosedDay.minusDays(3)));
+        ArgumentCaptor<LocalDate> days = ArgumentCaptor.forClass(LocalDate.class);
+
+        snapshotService.snapshotClosedDays();
+
+        verify(snapshotRepository, times(3)).snapshotDay(days.capture());
+        assertEquals(lastClosedDay.minusDays(2), days.getAllValues().get(0));
+        assertEquals(lastClosedDay, days.getAllValues().get(2));
+    }
+
+    @Test
+    void snapshotClosedDays_UpToDate_WritesNothing() {
+        LocalDate lastClosedDay = LocalDateTime.now().minusSeconds(300).toLocalDate().minusDays(1);
+        when(snapshotRepository.findLastDay()).thenReturn(Optional.of(lastClosedDay));
+
+        snapshotService.snapshotClosedDays();
+
+        verify(snapshotRepository, never()).snapshotDay(any());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardOwnershipIndexTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    private CardOwnershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CardOwnershipIndex(cardRepository, 2);
+    }
+
+    @Test
+    void getOwnerId_LoadsOnceThenFromMemory() {
+        when(cardRepository.findOwnerIdById(1L)).thenReturn(Optional.of(7L));
+
+        assertEquals(7L, index.getOwnerId(1L));
+        assertEquals(7L, index.getOwnerId(1L));
+        verify(cardRepository, times(1)).findOwnerIdById(1L);
+    }
+
+    @Test
+    void getOwnerId_UnknownCard_NotFound() {
+        when(cardRepository.findOwnerIdById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class, () -> index.getOwnerId(99L));
+    }
+
+    @Test
+    void invalidate_ReloadsOwner() {
+        index.put(1L, 7L);
+        index.invalidate(1L);
+        when(cardRepository.findOwnerIdById(1L)).thenReturn(Optional.of(8L));
+
+        assertEquals(8L, index.getOwnerId(1L));
+    }
+
+    @Test
+    void put_Full_StartsOver() {
+        index.put(1L, 7L);
+        index.put(2L, 7L);
+        index.put(3L, 8L);
+        when(cardRepository.findOwnerIdById(1L)).thenReturn(Optional.of(7L));
+
+        assertEquals(8L, index.getOwnerId(3L));
+        assertEquals(7L, index.getOwnerId(1L));
+        verify(cardRepository).findOwnerIdById(1L);
+    }
+}
@@ -20,6 +20,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,6 +43,12 @@ class CardServiceImplTest {
     @Mock
     private EncryptionService encryptionService;
 
+    @Mock
+    private AccountShardService accountShardService;
+
+    @Mock
+    private CardOwnershipIndex cardOwnershipIndex;
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -74,6 +81,9 @@ class CardServiceImplTest {
                 .expiryDate(LocalDate.now().plusYears(3))
                 .account(account)
                 .build();
+
+        lenient().when(accountShardService.getVisibleBalance(any(Account.class)))
+                .thenAnswer(invocation -> invocation.<Account>getArgument(0).getBalance());
     }
 
     @Test
@@ -100,6 +110,7 @@ class CardServiceImplTest {
         assertEquals(1L, result.getId());
         verify(cardRepository, times(1)).save(any(Card.class));
         verify(encryptionService, times(1)).encrypt(anyString());
+        verify(cardOwnershipIndex).put(1L, 1L);
     }
 
     @Test
@@ -179,6 +190,23 @@ class CardServiceImplTest {
         verify(cardRepository, times(1)).findByAccountUserId(anyLong(), any(Pageable.class));
     }
 
+    @Test
+    void getUserCardsEtag_CoversCardsAndTheirAccounts() {
+        CardRepository.ListingVersion cards = mock(CardRepository.ListingVersion.class);
+        when(cards.getCount()).thenReturn(2L);
+        when(cards.getVersions()).thenReturn(5L);
+        AccountRepository.ListingVersion accounts = mock(AccountRepository.ListingVersion.class, CALLS_REAL_METHODS);
+        doReturn(1L).when(accounts).getCount();
+        doReturn(3L).when(accounts).getVersions();
+        doReturn(new BigDecimal("12.50")).when(accounts).getShardBalance();
+        doReturn(LocalDateTime.of(2024, 1, 1, 12, 0)).when(accounts).getUserUpdatedAt();
+        when(cardRepository.findListingVersionByUserId(1L)).thenReturn(cards);
+        when(accountRepository.findListingVersionByUserId(1L)).thenReturn(accounts);
+
+        assertEquals("\"2-5-1-3-12.50-2024-01-01T12:00\"", cardService.getUserCardsEtag(1L));
+        verify(securityService).checkUserAccess(1L);
+    }
+
     @Test
     void updateCardStatus_Success() {
         // Arrange
@@ -207,6 +235,7 @@ class CardServiceImplTest {
 
         // Assert
         verify(cardRepository, times(1)).delete(card);
+        verify(cardOwnershipIndex).invalidate(1L);
     }
 
     @Test
@@ -0,0 +1,188 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.TransferValidationException;
+import com.example.bankcards.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardSpendingLimiterTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private CardSpendingLimiter limiter;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new CardSpendingLimiter(transactionRepository, true);
+        card = Card.builder()
+                .id(1L)
+                .dailyLimit(BigDecimal.valueOf(1000))
+                .build();
+    }
+
+    @Test
+    void reserve_WithinLimit_Passes() {
+        limiter.reserve(card, BigDecimal.valueOf(600));
+
+        assertDoesNotThrow(() -> limiter.reserve(card, BigDecimal.valueOf(400)));
+        assertEquals(new BigDecimal("1000.00"), limiter.getSpentToday(1L));
+    }
+
+    @Test
+    void reserve_OverLimit_ThrowsAndReservesNothing() {
+        limiter.reserve(card, BigDecimal.valueOf(600));
+
+        assertThrows(TransferValidationException.class, () -> limiter.reserve(card, BigDecimal.valueOf(400.01)));
+        assertEquals(new BigDecimal("600.00"), limiter.getSpentToday(1L));
+    }
+
+    @Test
+    void reserve_NoDailyLimit_CountsSpending() {
+        card.setDailyLimit(null);
+
+        assertDoesNotThrow(() -> limiter.reserve(card, BigDecimal.valueOf(5000)));
+        assertEquals(new BigDecimal("5000.00"), limiter.getSpentToday(1L));
+    }
+
+    @Test
+    void reserve_Concurrent_NeverExceedsLimit() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger accepted = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        limiter.reserve(card, BigDecimal.valueOf(7));
+                        accepted.incrementAndGet();
+                    } catch (TransferValidationException ignored) {
+                        // over the limit
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(142, accepted.get());
+        assertEquals(new BigDecimal("994.00"), limiter.getSpentToday(1L));
+    }
+
+    @Test
+    void reserve_InsideTransaction_ReleasedOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            limiter.reserve(card, BigDecimal.valueOf(300));
+            assertEquals(new BigDecimal("300.00"), limiter.getSpentToday(1L));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertEquals(new BigDecimal("0.00"), limiter.getSpentToday(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_InsideTransaction_KeptOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            limiter.reserve(card, BigDecimal.valueOf(300));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertEquals(new BigDecimal("300.00"), limiter.getSpentToday(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void resetForNewDay_SameDay_KeepsCounters() {
+        limiter.reserve(card, BigDecimal.valueOf(300));
+
+        limiter.resetForNewDay();
+
+        assertEquals(new BigDecimal("300.00"), limiter.getSpentToday(1L));
+    }
+
+    @Test
+    void rebuild_LoadsTodaysSpendingFromDatabase() {
+        when(transactionRepository.sumCardSpendingSince(any(LocalDateTime.class)))
+                .thenReturn(List.of(spending(1L, BigDecimal.valueOf(950))));
+
+        limiter.rebuild();
+
+        assertEquals(new BigDecimal("950.00"), limiter.getSpentToday(1L));
+        assertThrows(TransferValidationException.class, () -> limiter.reserve(card, BigDecimal.valueOf(100)));
+    }
+
+    @Test
+    void rebuild_KeepsReservationsTakenBeforeIt() {
+        Card other = Card.builder().id(2L).dailyLimit(BigDecimal.valueOf(1000)).build();
+        limiter.reserve(card, BigDecimal.valueOf(700));
+        when(transactionRepository.sumCardSpendingSince(any(LocalDateTime.class)))
+                .thenReturn(List.of(spending(1L, BigDecimal.valueOf(200)), spending(2L, BigDecimal.valueOf(300))));
+
+        limiter.rebuild();
+
+        assertEquals(new BigDecimal("700.00"), limiter.getSpentToday(1L));
+        assertEquals(new BigDecimal("300.00"), limiter.getSpentToday(2L));
+        assertThrows(TransferValidationException.class, () -> limiter.reserve(card, BigDecimal.valueOf(400)));
+        assertDoesNotThrow(() -> limiter.reserve(other, BigDecimal.valueOf(700)));
+    }
+
+    @Test
+    void reconcile_RaisesToCommittedButKeepsInFlightReservations() {
+        Card other = Card.builder().id(2L).dailyLimit(BigDecimal.valueOf(1000)).build();
+        limiter.reserve(card, BigDecimal.valueOf(100));
+        limiter.reserve(other, BigDecimal.valueOf(50));
+        when(transactionRepository.sumCardSpendingSince(any(LocalDateTime.class)))
+                .thenReturn(List.of(spending(1L, BigDecimal.valueOf(400)), spending(2L, BigDecimal.valueOf(20))));
+
+        limiter.reconcile();
+
+        assertEquals(new BigDecimal("400.00"), limiter.getSpentToday(1L));
+        assertEquals(new BigDecimal("50.00"), limiter.getSpentToday(2L));
+    }
+
+    private TransactionRepository.CardSpending spending(Long cardId, BigDecimal total) {
+        return new TransactionRepository.CardSpending() {
+            @Override
+            public Long getCardId() {
+                return cardId;
+            }
+
+            @Override
+            public BigDecimal getTotal() {
+                return total;
+            }
+        };
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BatchTransferItemResult;
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.exception.TransferValidationException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private SecurityService securityService;
+
+    @Mock
+    private TransferExecutor transferExecutor;
+
+    private IdempotencyService idempotencyService;
+    private TransactionDto transactionDto;
+    private TransferRequest transferRequest;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, transactionService,
+                securityService, transferExecutor, new ObjectMapper(), 100, 24);
+
+        transactionDto = new TransactionDto();
+        transactionDto.setId(42L);
+        transactionDto.setTransactionId("TXN42");
+
+        transferRequest = transferRequest("100.00");
+
+        lenient().when(securityService.getCurrentUserId()).thenReturn(1L);
+        lenient().when(transferExecutor.execute(any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        lenient().when(transferExecutor.guarded(any(), any())).thenAnswer(invocation -> {
+            TransferExecutor.TransferGuard guard = invocation.getArgument(0);
+            guard.beforeTransfer();
+            Object result = invocation.<Supplier<?>>getArgument(1).get();
+            guard.afterTransfer(result);
+            return result;
+        });
+        lenient().when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void execute_WithoutKey_RunsTransferDirectly() {
+        TransactionDto result = idempotencyService.execute(null, "TRANSFER", transferRequest, () -> transactionDto);
+
+        assertSame(transactionDto, result);
+        verifyNoInteractions(idempotencyKeyRepository, transferExecutor);
+    }
+
+    @Test
+    void execute_SameKeyTwice_RunsTransferOnce() {
+        AtomicInteger transfers = new AtomicInteger();
+        Supplier<TransactionDto> transfer = () -> {
+            transfers.incrementAndGet();
+            return transactionDto;
+        };
+
+        TransactionDto first = idempotencyService.execute("key-1", "TRANSFER", transferRequest, transfer);
+        TransactionDto second = idempotencyService.execute("key-1", "TRANSFER", transferRequest, transfer);
+
+        assertEquals(1, transfers.get());
+        assertSame(first, second);
+        ArgumentCaptor<IdempotencyKey> claim = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(claim.capture());
+        assertEquals(42L, claim.getValue().getTransactionId());
+        verify(transferExecutor, never()).execute(any());
+    }
+
+    @Test
+    void execute_KeyClaimedByAnotherNode_ReplaysStoredTransaction() {
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_idempotency_keys_user_key"));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-2"))
+                .thenReturn(Optional.of(IdempotencyKey.builder()
+                        .idempotencyKey("key-2").userId(1L).operation("TRANSFER").transactionId(42L).build()));
+        when(transactionService.getTransactionById(42L)).thenReturn(transactionDto);
+
+        TransactionDto result = idempotencyService.execute("key-2", "TRANSFER", transferRequest, () -> {
+            throw new AssertionError("transfer must not run twice");
+        });
+
+        assertEquals(42L, result.getId());
+    }
+
+    @Test
+    void execute_KeyReusedForOtherOperation_ThrowsException() {
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_idempotency_keys_user_key"));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-3"))
+                .thenReturn(Optional.of(IdempotencyKey.builder()
+                        .idempotencyKey("key-3").userId(1L).operation("CARD_TO_CARD").transactionId(42L).build()));
+
+        assertThrows(TransferValidationException.class,
+                () -> idempotencyService.execute("key-3", "TRANSFER", transferRequest, () -> transactionDto));
+    }
+
+    @Test
+    void execute_SameKeyDifferentRequest_ThrowsException() {
+        idempotencyService.execute("key-4", "TRANSFER", transferRequest, () -> transactionDto);
+
+        assertThrows(TransferValidationException.class, () -> idempotencyService.execute("key-4", "TRANSFER",
+                transferRequest("999.00"), () -> transactionDto));
+    }
+
+    @Test
+    void execute_KeyClaimedByAnotherNodeForDifferentRequest_ThrowsException() {
+        ArgumentCaptor<IdempotencyKey> claim = ArgumentCaptor.forClass(IdempotencyKey.class);
+        idempotencyService.execute("key-5", "TRANSFER", transferRequest, () -> transactionDto);
+        verify(idempotencyKeyRepository).saveAndFlush(claim.capture());
+        String storedHash = claim.getValue().getRequestHash();
+        assertNotNull(storedHash);
+
+        IdempotencyService otherNode = new IdempotencyService(idempotencyKeyRepository, transactionService,
+                securityService, transferExecutor, new ObjectMapper(), 100, 24);
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_idempotency_keys_user_key"));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-5"))
+                .thenReturn(Optional.of(IdempotencyKey.builder().idempotencyKey("key-5").userId(1L)
+                        .operation("TRANSFER").transactionId(42L).requestHash(storedHash).build()));
+        lenient().when(transactionService.getTransactionById(42L)).thenReturn(transactionDto);
+
+        assertEquals(42L, otherNode.execute("key-5", "TRANSFER", transferRequest("100.00"),
+                () -> transactionDto).getId());
+        assertThrows(TransferValidationException.class, () -> otherNode.execute("key-5", "TRANSFER",
+                transferRequest("999.00"), () -> transactionDto));
+    }
+
+    @Test
+    void execute_CacheFull_StartsOver() {
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, transactionService,
+                securityService, transferExecutor, new ObjectMapper(), 1, 24);
+        AtomicInteger transfers = new AtomicInteger();
+        Supplier<TransactionDto> transfer = () -> {
+            transfers.incrementAndGet();
+            return transactionDto;
+        };
+
+        idempotencyService.execute("key-6", "TRANSFER", transferRequest, transfer);
+        idempotencyService.execute("key-7", "TRANSFER", transferRequest, transfer);
+        idempotencyService.execute("key-7", "TRANSFER", transferRequest, transfer);
+
+        assertEquals(2, transfers.get());
+        // key-6 was dropped when the cache started over, so it goes back to the database
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_idempotency_keys_user_key"));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-6"))
+                .thenReturn(Optional.of(IdempotencyKey.builder()
+                        .idempotencyKey("key-6").userId(1L).operation("TRANSFER").transactionId(42L).build()));
+        when(transactionService.getTransactionById(42L)).thenReturn(transactionDto);
+
+        assertEquals(42L, idempotencyService.execute("key-6", "TRANSFER", transferRequest, transfer).getId());
+        assertEquals(2, transfers.get());
+    }
+
+    @Test
+    void executeBatch_StoresResponseForReplay() {
+        List<TransferRequest> transfers = List.of(new TransferRequest());
+        BatchTransferResponse response = BatchTransferResponse.of(List.of(BatchTransferItemResult.builder()
+                .index(0).status(Transaction.TransactionStatus.COMPLETED).transactionId("TXN1").build()));
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class))).thenAnswer(invocation -> {
+            IdempotencyKey claim = invocation.getArgument(0);
+            claim.setId(5L);
+            return claim;
+        });
+        when(transactionService.batchTransfer(eq(transfers), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<BatchTransferResponse>>getArgument(1).accept(response);
+            return response;
+        });
+
+        BatchTransferResponse result = idempotencyService.executeBatch("batch-1", transfers);
+
+        assertSame(response, result);
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyKeyRepository, times(2)).updateResponse(eq(5L), stored.capture());
+        assertTrue(stored.getValue().contains("TXN1"));
+    }
+
+    @Test
+    void executeBatch_KeyAlreadyUsed_ReplaysStoredResponse() {
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_idempotency_keys_user_key"));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "batch-2"))
+                .thenReturn(Optional.of(IdempotencyKey.builder()
+                        .idempotencyKey("batch-2").userId(1L).operation("BATCH")
+                        .response("{\"total\":2,\"completed\":1,\"failed\":1,\"results\":[]}").build()));
+
+        BatchTransferResponse result = idempotencyService.executeBatch("batch-2", List.of(new TransferRequest()));
+
+        assertEquals(2, result.getTotal());
+        assertEquals(1, result.getCompleted());
+        verify(transactionService, never()).batchTransfer(anyList(), any());
+    }
+
+    @Test
+    void executeBatch_KeyAlreadyUsedForDifferentBatch_ThrowsException() {
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_idempotency_keys_user_key"));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "batch-4"))
+                .thenReturn(Optional.of(IdempotencyKey.builder()
+                        .idempotencyKey("batch-4").userId(1L).operation("BATCH").requestHash("other")
+                        .response("{\"total\":1,\"completed\":1,\"failed\":0,\"results\":[]}").build()));
+
+        assertThrows(TransferValidationException.class,
+                () -> idempotencyService.executeBatch("batch-4", List.of(transferRequest)));
+    }
+
+    @Test
+    void executeBatch_StillRunning_ThrowsException() {
+        when(idempotencyKeyRepository.saveAndFlush(any(IdempotencyKey.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_idempotency_keys_user_key"));
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "batch-3"))
+                .thenReturn(Optional.of(IdempotencyKey.builder()
+                        .idempotencyKey("batch-3").userId(1L).operation("BATCH").build()));
+
+        assertThrows(TransferValidationException.class,
+                () -> idempotencyService.executeBatch("batch-3", List.of(new TransferRequest())));
+    }
+
+    private static TransferRequest transferRequest(String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountNumber("ACC1");
+        request.setToAccountNumber("ACC2");
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.LedgerCheckpoint;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.repository.LedgerCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger-checkpoint;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.ledger.settle-seconds=0",
+        "spring.jpa.show-sql=false"
+})
+class LedgerCheckpointTest {
+
+    private static final long FROM_ID = 900001L;
+    private static final long TO_ID = 900002L;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerCheckpointRepository ledgerCheckpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void pendingTransferCompletedAfterCheckpointAdvanced_IsCounted() {
+        LocalDateTime acceptedAt = LocalDateTime.now().minusHours(3);
+        ledgerCheckpointRepository.save(checkpoint(FROM_ID, BigDecimal.valueOf(1000), acceptedAt.plusHours(1)));
+        ledgerCheckpointRepository.save(checkpoint(TO_ID, BigDecimal.ZERO, acceptedAt.plusHours(1)));
+
+        // Accepted three hours ago, completed by the worker only now
+        Transaction pending = Transaction.builder()
+                .id(77L)
+                .amount(BigDecimal.valueOf(100))
+                .fromAccount(Account.builder().id(FROM_ID).build())
+                .toAccount(Account.builder().id(TO_ID).build())
+                .createdAt(acceptedAt)
+                .build();
+        transactionTemplate.executeWithoutResult(status -> ledgerService.record(pending));
+
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(ledgerService.getLedgerBalance(FROM_ID)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(ledgerService.getLedgerBalance(TO_ID)));
+
+        ledgerService.advanceCheckpoints();
+
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(ledgerCheckpointRepository.findById(FROM_ID).orElseThrow().getBalance()));
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(ledgerService.getLedgerBalance(FROM_ID)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(ledgerService.getLedgerBalance(TO_ID)));
+    }
+
+    private LedgerCheckpoint checkpoint(Long accountId, BigDecimal balance, LocalDateTime coveredUntil) {
+        return LedgerCheckpoint.builder()
+                .accountId(accountId)
+                .balance(balance)
+                .coveredUntil(coveredUntil)
+                .build();
+    }
+}
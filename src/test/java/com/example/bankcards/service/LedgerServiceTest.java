@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.LedgerCheckpoint;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.repository.LedgerCheckpointRepository;
+import com.example.bankcards.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private LedgerCheckpointRepository ledgerCheckpointRepository;
+
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() {
+        ledgerService = new LedgerService(ledgerEntryRepository, ledgerCheckpointRepository, 300);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_WritesBalancedDebitAndCreditLines() {
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(3);
+        Transaction transaction = Transaction.builder()
+                .id(10L)
+                .amount(BigDecimal.valueOf(100))
+                .fromAccount(Account.builder().id(1L).build())
+                .toAccount(Account.builder().id(2L).build())
+                .createdAt(createdAt)
+                .build();
+        ArgumentCaptor<List<LedgerEntry>> entries = ArgumentCaptor.forClass(List.class);
+
+        LocalDateTime completedAt = LocalDateTime.now();
+        ledgerService.record(transaction);
+
+        verify(ledgerEntryRepository).saveAll(entries.capture());
+        LedgerEntry debit = entries.getValue().get(0);
+        LedgerEntry credit = entries.getValue().get(1);
+        assertEquals(1L, debit.getAccountId());
+        assertEquals(BigDecimal.valueOf(-100), debit.getAmount());
+        assertEquals(2L, credit.getAccountId());
+        assertEquals(BigDecimal.valueOf(100), credit.getAmount());
+        assertEquals(0, debit.getAmount().add(credit.getAmount()).signum());
+        assertTrue(entries.getValue().stream()
+                .allMatch(e -> e.getTransactionId() == 10L && !e.getCreatedAt().isBefore(completedAt)));
+    }
+
+    @Test
+    void getLedgerBalance_AddsEntriesAfterCheckpoint() {
+        LocalDateTime coveredUntil = LocalDateTime.now().minusHours(1);
+        when(ledgerCheckpointRepository.findById(1L)).thenReturn(Optional.of(LedgerCheckpoint.builder()
+                .accountId(1L)
+                .balance(BigDecimal.valueOf(1000))
+                .coveredUntil(coveredUntil)
+                .build()));
+        when(ledgerEntryRepository.sumByAccountIdCreatedAfter(1L, coveredUntil)).thenReturn(BigDecimal.valueOf(-250));
+
+        assertEquals(BigDecimal.valueOf(750), ledgerService.getLedgerBalance(1L));
+    }
+
+    @Test
+    void getLedgerBalance_NoCheckpoint_SumsAllEntries() {
+        when(ledgerCheckpointRepository.findById(1L)).thenReturn(Optional.empty());
+        when(ledgerEntryRepository.sumByAccountId(1L)).thenReturn(BigDecimal.valueOf(40));
+
+        assertEquals(BigDecimal.valueOf(40), ledgerService.getLedgerBalance(1L));
+    }
+
+    @Test
+    void getLedgerBalanceAt_BeforeCheckpoint_TakesBackLaterEntries() {
+        LocalDateTime coveredUntil = LocalDateTime.now().minusHours(1);
+        LocalDateTime at = coveredUntil.minusDays(1);
+        when(ledgerCheckpointRepository.findById(1L)).thenReturn(Optional.of(LedgerCheckpoint.builder()
+                .accountId(1L)
+                .balance(BigDecimal.valueOf(1000))
+                .coveredUntil(coveredUntil)
+                .build()));
+        when(ledgerEntryRepository.sumByAccountIdCreatedBetween(1L, at, coveredUntil)).thenReturn(BigDecimal.valueOf(300));
+
+        assertEquals(BigDecimal.valueOf(700), ledgerService.getLedgerBalanceAt(1L, at));
+    }
+
+    @Test
+    void getLedgerBalanceAt_AfterCheckpoint_AddsEntriesUpToIt() {
+        LocalDateTime coveredUntil = LocalDateTime.now().minusHours(1);
+        LocalDateTime at = coveredUntil.plusMinutes(30);
+        when(ledgerCheckpointRepository.findById(1L)).thenReturn(Optional.of(LedgerCheckpoint.builder()
+                .accountId(1L)
+                .balance(BigDecimal.valueOf(1000))
+                .coveredUntil(coveredUntil)
+                .build()));
+        when(ledgerEntryRepository.sumByAccountIdCreatedBetween(1L, coveredUntil, at)).thenReturn(BigDecimal.valueOf(-50));
+
+        assertEquals(BigDecimal.valueOf(950), ledgerService.getLedgerBalanceAt(1L, at));
+    }
+
+    @Test
+    void advanceCheckpoints_StopsShortOfSettleWindow() {
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(ledgerCheckpointRepository.advanceTo(any())).thenReturn(3);
+
+        ledgerService.advanceCheckpoints();
+
+        verify(ledgerCheckpointRepository).advanceTo(cutoff.capture());
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusSeconds(299)));
+    }
+}
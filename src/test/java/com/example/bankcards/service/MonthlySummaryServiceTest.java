@@ -0,0 +1,133 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.AccountMonthlyTotalsDto;
+import com.example.bankcards.dto.MonthlySummaryDto;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.repository.MonthlyAccountTotalsRepository;
+import com.example.bankcards.repository.MonthlyAccountTotalsRepository.Increment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MonthlySummaryServiceTest {
+
+    private static final LocalDate JANUARY = LocalDate.of(2024, 1, 1);
+
+    @Mock
+    private MonthlyAccountTotalsRepository totalsRepository;
+
+    @Mock
+    private SecurityService securityService;
+
+    private MonthlySummaryService monthlySummaryService;
+    private Account first;
+    private Account second;
+
+    @BeforeEach
+    void setUp() {
+        monthlySummaryService = new MonthlySummaryService(totalsRepository, securityService);
+        first = Account.builder().id(1L).build();
+        second = Account.builder().id(2L).build();
+    }
+
+    @Test
+    void record_AddsOutflowToSenderAndInflowToRecipient() {
+        monthlySummaryService.record(transfer(second, first, 100, LocalDateTime.of(2024, 1, 31, 23, 59)));
+
+        assertEquals(List.of(
+                        new Increment(1L, JANUARY, "USD", 0, BigDecimal.valueOf(100), BigDecimal.ZERO, 1),
+                        new Increment(2L, JANUARY, "USD", 0, BigDecimal.ZERO, BigDecimal.valueOf(100), 1)),
+                captureIncrements());
+    }
+
+    @Test
+    void recordAll_MergesRowsOfTheSameAccountAndMonth() {
+        monthlySummaryService.recordAll(List.of(
+                transfer(first, second, 100, LocalDateTime.of(2024, 1, 10, 12, 0)),
+                transfer(second, first, 30, LocalDateTime.of(2024, 1, 11, 12, 0)),
+                transfer(first, second, 5, LocalDateTime.of(2024, 2, 1, 0, 0))));
+
+        assertEquals(List.of(
+                        new Increment(1L, JANUARY, "USD", 0, BigDecimal.valueOf(30), BigDecimal.valueOf(100), 2),
+                        new Increment(1L, JANUARY.plusMonths(1), "USD", 0, BigDecimal.ZERO, BigDecimal.valueOf(5), 1),
+                        new Increment(2L, JANUARY, "USD", 0, BigDecimal.valueOf(100), BigDecimal.valueOf(30), 2),
+                        new Increment(2L, JANUARY.plusMonths(1), "USD", 0, BigDecimal.valueOf(5), BigDecimal.ZERO, 1)),
+                captureIncrements());
+    }
+
+    @Test
+    void record_ShardedRecipient_CreditsOneOfItsShardRows() {
+        Account sharded = Account.builder().id(3L).balanceShards(4).build();
+
+        monthlySummaryService.record(transfer(first, sharded, 100, LocalDateTime.of(2024, 1, 15, 12, 0)));
+
+        List<Increment> increments = captureIncrements();
+        assertEquals(new Increment(1L, JANUARY, "USD", 0, BigDecimal.ZERO, BigDecimal.valueOf(100), 1),
+                increments.get(0));
+        Increment credit = increments.get(1);
+        assertEquals(3L, credit.accountId());
+        assertTrue(credit.shardNo() >= 0 && credit.shardNo() < 4);
+        assertEquals(BigDecimal.valueOf(100), credit.inflow());
+    }
+
+    @Test
+    void recordAll_Empty_WritesNothing() {
+        monthlySummaryService.recordAll(List.of());
+
+        verifyNoInteractions(totalsRepository);
+    }
+
+    @Test
+    void getSummary_ReadsTotalsOfCurrentUser() {
+        List<AccountMonthlyTotalsDto> accounts = List.of(AccountMonthlyTotalsDto.builder()
+                .accountNumber("1234567890")
+                .build());
+        when(securityService.getCurrentUserId()).thenReturn(7L);
+        when(totalsRepository.findByUserIdAndMonth(7L, JANUARY)).thenReturn(accounts);
+
+        MonthlySummaryDto summary = monthlySummaryService.getSummary(YearMonth.of(2024, 1));
+
+        assertEquals(YearMonth.of(2024, 1), summary.getMonth());
+        assertEquals(accounts, summary.getAccounts());
+    }
+
+    @Test
+    void recomputeMonth_RecountsFromFirstDayOfMonth() {
+        when(totalsRepository.recomputeMonth(JANUARY)).thenReturn(4);
+
+        assertEquals(4, monthlySummaryService.recomputeMonth(YearMonth.of(2024, 1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Increment> captureIncrements() {
+        ArgumentCaptor<List<Increment>> increments = ArgumentCaptor.forClass(List.class);
+        verify(totalsRepository).incrementAll(increments.capture());
+        return increments.getValue();
+    }
+
+    private Transaction transfer(Account from, Account to, long amount, LocalDateTime createdAt) {
+        return Transaction.builder()
+                .amount(BigDecimal.valueOf(amount))
+                .currency("USD")
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .fromAccount(from)
+                .toAccount(to)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.security.CurrentUserContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityServiceTest {
+
+    @Mock
+    private CardOwnershipIndex cardOwnershipIndex;
+
+    @Mock
+    private CurrentUserContext currentUserContext;
+
+    @InjectMocks
+    private SecurityService securityService;
+
+    @Test
+    void checkCardAccess_OwnCard_Allowed() {
+        when(currentUserContext.get()).thenReturn(currentUser(7L, "ROLE_USER"));
+        when(cardOwnershipIndex.getOwnerId(1L)).thenReturn(7L);
+
+        assertDoesNotThrow(() -> securityService.checkCardAccess(1L));
+    }
+
+    @Test
+    void checkCardAccess_OtherUsersCard_Denied() {
+        when(currentUserContext.get()).thenReturn(currentUser(7L, "ROLE_USER"));
+        when(cardOwnershipIndex.getOwnerId(1L)).thenReturn(8L);
+
+        assertThrows(AccessDeniedException.class, () -> securityService.checkCardAccess(1L));
+    }
+
+    @Test
+    void checkCardAccess_Admin_AllowedForAnyCard() {
+        when(currentUserContext.get()).thenReturn(currentUser(1L, "ROLE_ADMIN"));
+        when(cardOwnershipIndex.getOwnerId(1L)).thenReturn(8L);
+
+        assertDoesNotThrow(() -> securityService.checkCardAccess(1L));
+    }
+
+    @Test
+    void checkCardAccess_UnknownCard_NotFound() {
+        when(currentUserContext.get()).thenReturn(currentUser(1L, "ROLE_ADMIN"));
+        when(cardOwnershipIndex.getOwnerId(99L)).thenThrow(new CardNotFoundException(99L));
+
+        assertThrows(CardNotFoundException.class, () -> securityService.checkCardAccess(99L));
+    }
+
+    @Test
+    void checkUserAccess_UsesContextOnly() {
+        when(currentUserContext.get()).thenReturn(currentUser(7L, "ROLE_USER"));
+
+        securityService.checkUserAccess(7L);
+        assertThrows(AccessDeniedException.class, () -> securityService.checkUserAccess(8L));
+        verifyNoInteractions(cardOwnershipIndex);
+    }
+
+    @Test
+    void getCurrentUserId_UnknownUser_Throws() {
+        when(currentUserContext.get()).thenReturn(currentUser(null, "ROLE_USER"));
+
+        assertThrows(RuntimeException.class, () -> securityService.getCurrentUserId());
+    }
+
+    private CurrentUserContext.CurrentUser currentUser(Long id, String role) {
+        return new CurrentUserContext.CurrentUser(id, "testuser", Set.of(role), null);
+    }
+}
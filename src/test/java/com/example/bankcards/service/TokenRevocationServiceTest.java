@@ -0,0 +1,129 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserDeletion;
+import com.example.bankcards.repository.UserDeletionRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    private static final long DAY_MS = 86_400_000L;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserDeletionRepository userDeletionRepository;
+
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        revocationService = new TokenRevocationService(userRepository, userDeletionRepository, true, DAY_MS);
+    }
+
+    @Test
+    void refresh_RevokesUsersThatAreNotActive() {
+        when(userRepository.findByUpdatedAtAfter(any())).thenReturn(List.of());
+        when(userRepository.findIdsByStatusNot(User.UserStatus.ACTIVE)).thenReturn(List.of(7L));
+
+        revocationService.refresh();
+
+        assertTrue(revocationService.isRevoked(7L));
+        assertFalse(revocationService.isRevoked(8L));
+    }
+
+    @Test
+    void refresh_RevokesUsersDeletedWithinTokenLifetime() {
+        when(userRepository.findByUpdatedAtAfter(any())).thenReturn(List.of());
+        when(userRepository.findIdsByStatusNot(User.UserStatus.ACTIVE)).thenReturn(List.of(7L));
+        when(userDeletionRepository.findUserIdsDeletedAfter(any())).thenReturn(List.of(9L));
+
+        revocationService.refresh();
+
+        assertTrue(revocationService.isRevoked(7L));
+        assertTrue(revocationService.isRevoked(9L));
+        assertFalse(revocationService.isRevoked(8L));
+    }
+
+    @Test
+    void recordDeletion_SavesDeletionAndDropsExpiredOnes() {
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<UserDeletion> deletion = ArgumentCaptor.forClass(UserDeletion.class);
+
+        revocationService.recordDeletion(9L);
+
+        verify(userDeletionRepository).deleteDeletedBefore(cutoff.capture());
+        verify(userDeletionRepository).save(deletion.capture());
+        assertEquals(9L, deletion.getValue().getUserId());
+        assertEquals(deletion.getValue().getDeletedAt().minusDays(1), cutoff.getValue());
+    }
+
+    @Test
+    void isStale_TokenIssuedBeforeUserUpdate() {
+        LocalDateTime updatedAt = LocalDateTime.now().minusHours(1);
+        when(userRepository.findByUpdatedAtAfter(any())).thenReturn(List.of(updatedUser(7L, updatedAt)));
+        when(userRepository.findIdsByStatusNot(User.UserStatus.ACTIVE)).thenReturn(List.of());
+
+        revocationService.refresh();
+
+        Date issuedBefore = Date.from(updatedAt.minusMinutes(5).atZone(ZoneId.systemDefault()).toInstant());
+        Date issuedAfter = Date.from(updatedAt.plusMinutes(5).atZone(ZoneId.systemDefault()).toInstant());
+        assertTrue(revocationService.isStale(7L, issuedBefore));
+        assertFalse(revocationService.isStale(7L, issuedAfter));
+        assertFalse(revocationService.isStale(8L, issuedBefore));
+    }
+
+    @Test
+    void refresh_LooksBackOneTokenLifetime() {
+        when(userRepository.findByUpdatedAtAfter(any())).thenReturn(List.of());
+        when(userRepository.findIdsByStatusNot(User.UserStatus.ACTIVE)).thenReturn(List.of());
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+
+        revocationService.refresh();
+
+        verify(userRepository).findByUpdatedAtAfter(since.capture());
+        LocalDateTime expected = LocalDateTime.now().minusDays(1);
+        assertTrue(since.getValue().isAfter(expected.minusMinutes(1)) && since.getValue().isBefore(expected.plusMinutes(1)));
+    }
+
+    @Test
+    void refresh_Disabled_DoesNotQuery() {
+        revocationService = new TokenRevocationService(userRepository, userDeletionRepository, false, DAY_MS);
+
+        revocationService.refresh();
+
+        assertFalse(revocationService.isEnabled());
+        verifyNoInteractions(userRepository);
+    }
+
+    private UserRepository.UpdatedUser updatedUser(Long id, LocalDateTime updatedAt) {
+        return new UserRepository.UpdatedUser() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getUpdatedAt() {
+                return updatedAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.repository.AccountRepository;
+import com.example.bankcards.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private SecurityService securityService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private TransactionExportService exportService;
+    private Account account;
+    private Account counterparty;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new TransactionExportService(transactionRepository, accountRepository,
+                securityService, entityManager, objectMapper);
+        account = Account.builder().id(1L).accountNumber("1111").build();
+        counterparty = Account.builder().id(2L).build();
+    }
+
+    @Test
+    void export_Ndjson_MergesBothSidesInTimeOrder() throws Exception {
+        when(transactionRepository.streamOutgoing(eq(1L), any(), any()))
+                .thenReturn(Stream.of(transaction(1L, 0, account, counterparty), transaction(4L, 3, account, counterparty)));
+        when(transactionRepository.streamIncoming(eq(1L), any(), any()))
+                .thenReturn(Stream.of(transaction(2L, 1, counterparty, account), transaction(3L, 2, counterparty, account)));
+        when(accountRepository.findAccountNumberById(2L)).thenReturn(Optional.of("2222"));
+
+        String output = export(TransactionExportService.Format.NDJSON);
+
+        String[] lines = output.split("\n");
+        assertEquals(4, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith("{\"id\":" + (i + 1) + ","), lines[i]);
+        }
+        assertTrue(lines[0].contains("\"fromAccountNumber\":\"1111\"") && lines[0].contains("\"toAccountNumber\":\"2222\""));
+        // Counterparty numbers are looked up once, not per row
+        verify(accountRepository, times(1)).findAccountNumberById(2L);
+    }
+
+    @Test
+    void export_Csv_WritesHeaderAndEscapesFields() throws Exception {
+        Transaction transaction = transaction(1L, 0, account, counterparty);
+        transaction.setDescription("Rent, \"March\"");
+        when(transactionRepository.streamOutgoing(eq(1L), any(), any())).thenReturn(Stream.of(transaction));
+        when(transactionRepository.streamIncoming(eq(1L), any(), any())).thenReturn(Stream.empty());
+        when(accountRepository.findAccountNumberById(2L)).thenReturn(Optional.of("2222"));
+
+        String output = export(TransactionExportService.Format.CSV);
+
+        String[] lines = output.split("\n");
+        assertEquals("id,transactionId,createdAt,type,status,amount,currency,fromAccountNumber,toAccountNumber,description",
+                lines[0]);
+        assertEquals("1,TXN1,2024-03-01T10:00,TRANSFER,COMPLETED,10.00,USD,1111,2222,\"Rent, \"\"March\"\"\"", lines[1]);
+    }
+
+    @Test
+    void csvField_FormulaPrefix_IsNeutralised() {
+        assertEquals("\"'=HYPERLINK(\"\"http://evil\"\")\"",
+                TransactionExportService.csvField("=HYPERLINK(\"http://evil\")"));
+        assertEquals("'+1", TransactionExportService.csvField("+1"));
+        assertEquals("'-2+3", TransactionExportService.csvField("-2+3"));
+        assertEquals("'@SUM(A1)", TransactionExportService.csvField("@SUM(A1)"));
+        assertEquals("\"'=1,2\"", TransactionExportService.csvField("=1,2"));
+        assertEquals("Rent 1=2", TransactionExportService.csvField("Rent 1=2"));
+    }
+
+    @Test
+    void export_ManyRows_ClearsPersistenceContextPeriodically() throws Exception {
+        when(transactionRepository.streamOutgoing(eq(1L), any(), any()))
+                .thenReturn(IntStream.range(0, 2500).mapToObj(i -> transaction((long) i, i, account, counterparty)));
+        when(transactionRepository.streamIncoming(eq(1L), any(), any())).thenReturn(Stream.empty());
+        when(accountRepository.findAccountNumberById(2L)).thenReturn(Optional.of("2222"));
+
+        export(TransactionExportService.Format.NDJSON);
+
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void formatOf_IsCaseInsensitiveAndRejectsUnknown() {
+        assertEquals(TransactionExportService.Format.CSV, TransactionExportService.Format.of("csv"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionExportService.Format.of("xml"));
+    }
+
+    private String export(TransactionExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(1L, "1111", null, null, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private Transaction transaction(Long id, int minutes, Account from, Account to) {
+        return Transaction.builder()
+                .id(id)
+                .transactionId("TXN" + id)
+                .amount(new BigDecimal("10.00"))
+                .currency("USD")
+                .type(Transaction.TransactionType.TRANSFER)
+                .status(Transaction.TransactionStatus.COMPLETED)
+                .description("Transfer")
+                .createdAt(T0.plusMinutes(minutes))
+                .fromAccount(from)
+                .toAccount(to)
+                .build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferResponse;
 import com.example.bankcards.dto.CardToCardTransferRequest;
 import com.example.bankcards.dto.TransactionDto;
+import com.example.bankcards.dto.TransactionPageResponse;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.Account;
 import com.example.bankcards.entity.Card;
@@ -9,22 +11,35 @@ import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.AccountNotFoundException;
 import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TransferValidationException;
 import com.example.bankcards.repository.AccountRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransactionBatchRepository;
 import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.repository.TransferProcedureRepository;
 import com.example.bankcards.service.impl.TransactionServiceImpl;
+import com.example.bankcards.util.TransactionCursor;
+import com.example.bankcards.util.TransactionIdGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -45,6 +60,36 @@ class TransactionServiceImplTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private TransferExecutor transferExecutor;
+
+    @Mock
+    private TransferProcedureRepository transferProcedureRepository;
+
+    @Mock
+    private AccountLockManager accountLockManager;
+
+    @Mock
+    private TransactionBatchRepository transactionBatchRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CardSpendingLimiter cardSpendingLimiter;
+
+    @Mock
+    private AccountShardService accountShardService;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private MonthlySummaryService monthlySummaryService;
+
+    @Spy
+    private TransactionIdGenerator transactionIdGenerator = new TransactionIdGenerator(1, 5000);
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -117,14 +162,21 @@ class TransactionServiceImplTest {
         transferRequest.setToAccountNumber("0987654321");
         transferRequest.setAmount(BigDecimal.valueOf(100));
         transferRequest.setDescription("Test transfer");
+
+        lenient().when(transferExecutor.execute(any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+        lenient().when(accountLockManager.withAccountLocks(anyLong(), anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
     }
 
     @Test
     void transfer_Success() {
         // Arrange
         when(securityService.getCurrentUserId()).thenReturn(1L);
-        when(accountRepository.findByAccountNumber("1234567890")).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findByAccountNumber("0987654321")).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findIdByAccountNumber("1234567890")).thenReturn(Optional.of(1L));
+        when(accountRepository.findIdByAccountNumber("0987654321")).thenReturn(Optional.of(2L));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
 
         when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -151,6 +203,34 @@ class TransactionServiceImplTest {
 
         verify(accountRepository, times(2)).save(any(Account.class));
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(ledgerService).record(savedTransaction);
+        verify(monthlySummaryService).record(savedTransaction);
+    }
+
+    @Test
+    void transfer_ShardedTarget_CreditsShardWithoutLockingTarget() {
+        // Arrange
+        toAccount.setBalanceShards(4);
+
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(accountRepository.findIdByAccountNumber("1234567890")).thenReturn(Optional.of(1L));
+        when(accountRepository.findIdByAccountNumber("0987654321")).thenReturn(Optional.of(2L));
+        when(accountShardService.isSharded(2L)).thenReturn(true);
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(toAccount));
+        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transactionService.transfer(transferRequest);
+
+        // Assert
+        verify(accountLockManager).withAccountLocks(eq(1L), eq(1L), any());
+        verify(accountRepository, never()).findByIdForUpdate(2L);
+        verify(accountShardService).consolidate(fromAccount);
+        verify(accountShardService).credit(toAccount, BigDecimal.valueOf(100));
+        assertEquals(BigDecimal.valueOf(900), fromAccount.getBalance());
+        assertEquals(BigDecimal.valueOf(500), toAccount.getBalance());
     }
 
     @Test
@@ -159,8 +239,10 @@ class TransactionServiceImplTest {
         fromAccount.setBalance(BigDecimal.valueOf(50)); // Меньше суммы перевода
 
         when(securityService.getCurrentUserId()).thenReturn(1L);
-        when(accountRepository.findByAccountNumber("1234567890")).thenReturn(Optional.of(fromAccount));
-        when(accountRepository.findByAccountNumber("0987654321")).thenReturn(Optional.of(toAccount));
+        when(accountRepository.findIdByAccountNumber("1234567890")).thenReturn(Optional.of(1L));
+        when(accountRepository.findIdByAccountNumber("0987654321")).thenReturn(Optional.of(2L));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
 
         // УБРАТЬ эти моки
         // when(cardRepository.findByAccountId(1L)).thenReturn(List.of(fromCard));
@@ -173,10 +255,136 @@ class TransactionServiceImplTest {
     }
 
     @Test
-    void transfer_AccountNotFound_ThrowsException() {
+    void transfer_LocksAccountsInAscendingIdOrder() {
         // Arrange
+        transferRequest.setFromAccountNumber("0987654321");
+        transferRequest.setToAccountNumber("1234567890");
+
         when(securityService.getCurrentUserId()).thenReturn(1L);
-        when(accountRepository.findByAccountNumber("1234567890")).thenReturn(Optional.empty());
+        when(accountRepository.findIdByAccountNumber("0987654321")).thenReturn(Optional.of(2L));
+        when(accountRepository.findIdByAccountNumber("1234567890")).thenReturn(Optional.of(1L));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        TransactionDto result = transactionService.transfer(transferRequest);
+
+        // Assert
+        assertEquals("0987654321", result.getFromAccountNumber());
+        assertEquals(BigDecimal.valueOf(400), toAccount.getBalance());
+        assertEquals(BigDecimal.valueOf(1100), fromAccount.getBalance());
+
+        InOrder lockOrder = inOrder(accountRepository);
+        lockOrder.verify(accountRepository).findByIdForUpdate(1L);
+        lockOrder.verify(accountRepository).findByIdForUpdate(2L);
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    void transfer_ProcedureMode_UsesSingleDatabaseCall() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransactionServiceImpl.TransferMode.PROCEDURE);
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(transferProcedureRepository.transfer(eq("1234567890"), eq("0987654321"), eq(BigDecimal.valueOf(100)),
+                eq("Test transfer"), anyString(), eq(1L)))
+                .thenReturn(new TransferProcedureRepository.TransferResult("COMPLETED", 10L, LocalDateTime.now(),
+                        "USD", 1L, 2L, BigDecimal.valueOf(900)));
+
+        // Act
+        TransactionDto result = transactionService.transfer(transferRequest);
+
+        // Assert
+        assertEquals(10L, result.getId());
+        assertEquals("USD", result.getCurrency());
+        assertEquals(Transaction.TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(2L, result.getToAccountId());
+        verifyNoInteractions(accountRepository, transactionRepository);
+    }
+
+    @Test
+    void transfer_ProcedureMode_InsufficientFunds_ThrowsException() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransactionServiceImpl.TransferMode.PROCEDURE);
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(transferProcedureRepository.transfer(anyString(), anyString(), any(), anyString(), anyString(), anyLong()))
+                .thenReturn(new TransferProcedureRepository.TransferResult("INSUFFICIENT_FUNDS", null, null,
+                        "USD", 1L, 2L, BigDecimal.valueOf(50)));
+
+        // Act & Assert
+        assertThrows(InsufficientFundsException.class, () -> transactionService.transfer(transferRequest));
+    }
+
+    @Test
+    void batchTransfer_CombinesBalancesAndReportsPerItemStatus() {
+        // Arrange
+        TransferRequest second = new TransferRequest();
+        second.setFromAccountNumber("1234567890");
+        second.setToAccountNumber("0987654321");
+        second.setAmount(BigDecimal.valueOf(200));
+
+        TransferRequest tooLarge = new TransferRequest();
+        tooLarge.setFromAccountNumber("1234567890");
+        tooLarge.setToAccountNumber("0987654321");
+        tooLarge.setAmount(BigDecimal.valueOf(5000));
+
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(accountRepository.findAllByAccountNumberInForUpdate(anyCollection()))
+                .thenReturn(List.of(fromAccount, toAccount));
+        when(cardRepository.findAccountIdsWithActiveCards(anyCollection())).thenReturn(Set.of(1L, 2L));
+
+        // Act
+        BatchTransferResponse response = transactionService.batchTransfer(List.of(transferRequest, second, tooLarge));
+
+        // Assert
+        assertEquals(3, response.getTotal());
+        assertEquals(2, response.getCompleted());
+        assertEquals(1, response.getFailed());
+        assertEquals(Transaction.TransactionStatus.FAILED, response.getResults().get(2).getStatus());
+        assertNotNull(response.getResults().get(0).getTransactionId());
+        assertEquals(BigDecimal.valueOf(700), fromAccount.getBalance());
+        assertEquals(BigDecimal.valueOf(800), toAccount.getBalance());
+
+        verify(accountRepository, times(1)).findAllByAccountNumberInForUpdate(anyCollection());
+        verify(transactionBatchRepository, times(1)).insertAll(argThat(rows -> rows.size() == 2));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void batchTransfer_ChunkFails_KeepsCommittedResultsAndStops() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "batchChunkSize", 1);
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(accountRepository.findAllByAccountNumberInForUpdate(anyCollection()))
+                .thenReturn(List.of(fromAccount, toAccount));
+        when(cardRepository.findAccountIdsWithActiveCards(anyCollection())).thenReturn(Set.of(1L, 2L));
+        doNothing().doThrow(new DataAccessResourceFailureException("connection reset"))
+                .when(transactionBatchRepository).insertAll(anyList());
+        List<BatchTransferResponse> progress = new ArrayList<>();
+
+        // Act
+        BatchTransferResponse response = transactionService.batchTransfer(
+                List.of(transferRequest, transferRequest, transferRequest), progress::add);
+
+        // Assert
+        assertEquals(3, response.getTotal());
+        assertEquals(1, response.getCompleted());
+        assertEquals(Transaction.TransactionStatus.COMPLETED, response.getResults().get(0).getStatus());
+        assertNotNull(response.getResults().get(0).getTransactionId());
+        assertEquals(Transaction.TransactionStatus.FAILED, response.getResults().get(1).getStatus());
+        assertTrue(response.getResults().get(1).getMessage().contains("connection reset"));
+        assertEquals("Not processed", response.getResults().get(2).getMessage());
+
+        assertEquals(1, progress.size());
+        assertEquals(1, progress.get(0).getCompleted());
+        assertEquals(3, progress.get(0).getTotal());
+        verify(transactionBatchRepository, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    void transfer_AccountNotFound_ThrowsException() {
+        // Arrange
+        when(accountRepository.findIdByAccountNumber("1234567890")).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> { // ИЗМЕНИТЬ на RuntimeException
@@ -194,6 +402,10 @@ class TransactionServiceImplTest {
         request.setDescription("Card to card transfer");
 
         when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(cardRepository.findAccountIdById(1L)).thenReturn(Optional.of(1L));
+        when(cardRepository.findAccountIdById(2L)).thenReturn(Optional.of(2L));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
         when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
         when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
         doNothing().when(securityService).checkCardAccess(1L);
@@ -227,6 +439,30 @@ class TransactionServiceImplTest {
     }
 
 
+    @Test
+    void cardToCardTransfer_DailyLimitExceeded_ThrowsException() {
+        // Arrange
+        CardToCardTransferRequest request = new CardToCardTransferRequest();
+        request.setFromCardId(1L);
+        request.setToCardId(2L);
+        request.setAmount(BigDecimal.valueOf(100));
+
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(cardRepository.findAccountIdById(1L)).thenReturn(Optional.of(1L));
+        when(cardRepository.findAccountIdById(2L)).thenReturn(Optional.of(2L));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
+        doThrow(new TransferValidationException("Daily limit exceeded"))
+                .when(cardSpendingLimiter).reserve(fromCard, BigDecimal.valueOf(100));
+
+        // Act & Assert
+        assertThrows(TransferValidationException.class, () -> transactionService.cardToCardTransfer(request));
+        assertEquals(BigDecimal.valueOf(1000), fromAccount.getBalance());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
     @Test
     void getTransactionById_Success() {
         // Arrange
@@ -253,22 +489,60 @@ class TransactionServiceImplTest {
         when(accountRepository.findByAccountNumber("1234567890")).thenReturn(Optional.of(fromAccount));
         doNothing().when(securityService).checkUserAccess(1L);
 
-        Transaction transaction = Transaction.builder()
-                .id(1L)
-                .amount(BigDecimal.valueOf(100))
-                .fromAccount(fromAccount)
-                .build();
+        TransactionDto transaction = new TransactionDto();
+        transaction.setId(1L);
+        transaction.setAmount(BigDecimal.valueOf(100));
+        transaction.setFromAccountNumber("1234567890");
 
-        when(transactionRepository.findByFromAccountAccountNumberOrToAccountAccountNumber("1234567890", "1234567890"))
-                .thenReturn(List.of(transaction));
+        when(transactionRepository.findPageIds(eq(List.of(1L)), any(), eq(TransactionCursor.START.createdAt()),
+                eq(Long.MAX_VALUE), eq(51))).thenReturn(List.of(1L));
+        when(transactionRepository.findDtosByIdIn(List.of(1L))).thenReturn(List.of(transaction));
 
         // Act
-        List<TransactionDto> result = transactionService.getAccountTransactions("1234567890");
+        TransactionPageResponse result = transactionService.getAccountTransactions("1234567890", null, 50);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(1L, result.get(0).getId());
+        assertEquals(1, result.getItems().size());
+        assertEquals(1L, result.getItems().get(0).getId());
+        assertEquals("1234567890", result.getItems().get(0).getFromAccountNumber());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getUserTransactions_MoreRows_ReturnsPageInKeyOrderWithNextCursor() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        TransactionDto newest = new TransactionDto();
+        newest.setId(7L);
+        newest.setCreatedAt(now);
+        TransactionDto older = new TransactionDto();
+        older.setId(3L);
+        older.setCreatedAt(now.minusMinutes(1));
+        TransactionCursor after = new TransactionCursor(now.plusHours(1), 99L);
+
+        when(accountRepository.findIdsByUserId(1L)).thenReturn(List.of(1L, 2L));
+        when(transactionRepository.findPageIds(eq(List.of(1L, 2L)), any(), eq(after.createdAt()), eq(99L), eq(3)))
+                .thenReturn(List.of(7L, 3L, 2L));
+        when(transactionRepository.findDtosByIdIn(List.of(7L, 3L))).thenReturn(List.of(older, newest));
+
+        // Act
+        TransactionPageResponse result = transactionService.getUserTransactions(1L, after.encode(), 2);
+
+        // Assert
+        assertEquals(List.of(7L, 3L), result.getItems().stream().map(TransactionDto::getId).toList());
+        assertEquals(TransactionCursor.of(older), TransactionCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    void getUserTransactions_NoAccounts_ReturnsEmptyPage() {
+        when(accountRepository.findIdsByUserId(1L)).thenReturn(List.of());
+
+        TransactionPageResponse result = transactionService.getUserTransactions(1L, null, 50);
+
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(transactionRepository, never()).findPageIds(any(), any(), any(), any(), anyInt());
     }
 
     @Test
@@ -304,4 +578,87 @@ class TransactionServiceImplTest {
         assertEquals(2L, result.getToAccountId());
         assertEquals("0987654321", result.getToAccountNumber());
     }
-}
\ No newline at end of file
+
+    @Test
+    void submitTransfer_SavesPendingAndPublishesEvent() {
+        // Arrange
+        when(securityService.getCurrentUserId()).thenReturn(1L);
+        when(accountRepository.findByAccountNumber("1234567890")).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByAccountNumber("0987654321")).thenReturn(Optional.of(toAccount));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            transaction.setId(10L);
+            return transaction;
+        });
+
+        // Act
+        TransactionDto result = transactionService.submitTransfer(transferRequest);
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.PENDING, result.getStatus());
+        assertNotNull(result.getTransactionId());
+        assertEquals(BigDecimal.valueOf(1000), fromAccount.getBalance());
+        verify(eventPublisher).publishEvent(new TransferAcceptedEvent(10L));
+        verify(accountRepository, never()).save(any(Account.class));
+    }
+
+    @Test
+    void processPendingTransfer_CompletesTransfer() {
+        // Arrange
+        Transaction pending = Transaction.builder()
+                .id(10L)
+                .transactionId("TXN10")
+                .amount(BigDecimal.valueOf(100))
+                .currency("USD")
+                .type(Transaction.TransactionType.TRANSFER)
+                .status(Transaction.TransactionStatus.PENDING)
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .build();
+
+        when(transactionRepository.findById(10L)).thenReturn(Optional.of(pending));
+        when(transactionRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(pending));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transactionService.processPendingTransfer(10L);
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.COMPLETED, pending.getStatus());
+        assertEquals(BigDecimal.valueOf(900), fromAccount.getBalance());
+        assertEquals(BigDecimal.valueOf(600), toAccount.getBalance());
+    }
+
+    @Test
+    void processPendingTransfer_InsufficientFunds_MarksFailed() {
+        // Arrange
+        fromAccount.setBalance(BigDecimal.valueOf(50));
+        Transaction pending = Transaction.builder()
+                .id(10L)
+                .transactionId("TXN10")
+                .amount(BigDecimal.valueOf(100))
+                .currency("USD")
+                .type(Transaction.TransactionType.TRANSFER)
+                .status(Transaction.TransactionStatus.PENDING)
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .build();
+
+        when(transactionRepository.findById(10L)).thenReturn(Optional.of(pending));
+        when(transactionRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(pending));
+        when(accountRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(toAccount));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        transactionService.processPendingTransfer(10L);
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.FAILED, pending.getStatus());
+        assertNotNull(pending.getFailureReason());
+        assertEquals(BigDecimal.valueOf(50), fromAccount.getBalance());
+        verify(accountRepository, never()).save(any(Account.class));
+    }
+}
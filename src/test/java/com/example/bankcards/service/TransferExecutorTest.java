@@ -0,0 +1,109 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.TransferValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferExecutorTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransferExecutor transferExecutor;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        transferExecutor = new TransferExecutor(transactionManager, 3, 1, 2);
+    }
+
+    @Test
+    void execute_RetriesAfterLockFailure() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = transferExecutor.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(2, calls.get());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void execute_GivesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(TransferValidationException.class, () -> transferExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new CannotAcquireLockException("could not serialize access");
+        }));
+
+        assertEquals(3, calls.get());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void execute_DoesNotRetryBusinessErrors() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(TransferValidationException.class, () -> transferExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new TransferValidationException("Currency mismatch between accounts");
+        }));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void guarded_JoinsFirstTransactionOnlyAndReplaysWithIt() {
+        List<String> events = new ArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        TransferExecutor.TransferGuard guard = new TransferExecutor.TransferGuard() {
+            @Override
+            public void beforeTransfer() {
+                events.add("claim");
+            }
+
+            @Override
+            public void afterTransfer(Object result) {
+                events.add("link " + result);
+            }
+        };
+
+        String result = transferExecutor.guarded(guard, () -> {
+            events.add("stripes locked");
+            return transferExecutor.execute(() -> {
+                events.add("transfer");
+                if (attempts.incrementAndGet() == 1) {
+                    throw new CannotAcquireLockException("deadlock detected");
+                }
+                return "TXN1";
+            });
+        });
+        transferExecutor.execute(() -> events.add("unguarded"));
+
+        assertEquals("TXN1", result);
+        assertEquals(List.of("stripes locked", "claim", "transfer", "claim", "transfer", "link TXN1", "unguarded"),
+                events);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-deletion-revocation;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.jwt.claims-auth.enabled=true",
+        "spring.jpa.show-sql=false"
+})
+class UserDeletionRevocationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void deleteUser_RevokesTokensAtNextRefresh() {
+        User user = userRepository.save(User.builder()
+                .username("deleted_user")
+                .email("deleted_user@example.com")
+                .password("secret")
+                .roles(List.of("ROLE_USER"))
+                .build());
+        tokenRevocationService.refresh();
+        assertFalse(tokenRevocationService.isRevoked(user.getId()));
+
+        userService.deleteUser(user.getId());
+        tokenRevocationService.refresh();
+
+        assertTrue(tokenRevocationService.isRevoked(user.getId()));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.UserRegistrationDto;
+import com.example.bankcards.dto.UserUpdateDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.BoundedPasswordEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-password-hashing;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false"
+})
+class UserPasswordHashingTest {
+
+    @Autowired
+    private UserService userService;
+
+    @SpyBean
+    private BoundedPasswordEncoder passwordEncoder;
+
+    private final List<Boolean> transactionActive = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).encode(any());
+    }
+
+    @Test
+    void registerUser_HashesOutsideTransaction() {
+        User user = userService.registerUser(registration("hashing_register"));
+
+        assertEquals(List.of(false), transactionActive);
+        assertTrue(passwordEncoder.matches("secret123", userService.getUserById(user.getId()).getPassword()));
+    }
+
+    @Test
+    void updateUser_HashesOutsideTransaction() {
+        User user = userService.registerUser(registration("hashing_update"));
+        transactionActive.clear();
+        UserUpdateDto update = new UserUpdateDto();
+        update.setPassword("changed123");
+
+        userService.updateUser(user.getId(), update);
+
+        assertEquals(List.of(false), transactionActive);
+        assertTrue(passwordEncoder.matches("changed123", userService.getUserById(user.getId()).getPassword()));
+    }
+
+    private UserRegistrationDto registration(String username) {
+        UserRegistrationDto dto = new UserRegistrationDto();
+        dto.setUsername(username);
+        dto.setEmail(username + "@example.com");
+        dto.setPassword("secret123");
+        dto.setFirstName("Test");
+        dto.setLastName("User");
+        return dto;
+    }
+}
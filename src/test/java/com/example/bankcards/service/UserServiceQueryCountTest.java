@@ -0,0 +1,96 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.entity.Account;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-query-count;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Transactional
+class UserServiceQueryCountTest {
+
+    private static final int USERS = 1000;
+    private static final int ACCOUNTS_PER_USER = 2;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void getAllUsersWithCards_ThousandUsers_RunsBoundedNumberOfQueries() {
+        for (int i = 0; i < USERS; i++) {
+            User user = User.builder()
+                    .username("count" + i)
+                    .email("count" + i + "@example.com")
+                    .password("secret")
+                    .roles(List.of("ROLE_USER"))
+                    .build();
+            entityManager.persist(user);
+            for (int j = 0; j < ACCOUNTS_PER_USER; j++) {
+                Account account = Account.builder()
+                        .accountNumber("COUNT-" + i + "-" + j)
+                        .balance(BigDecimal.TEN)
+                        .currency("RUB")
+                        .type(Account.AccountType.CURRENT)
+                        .status(Account.AccountStatus.ACTIVE)
+                        .user(user)
+                        .build();
+                entityManager.persist(account);
+                entityManager.persist(Card.builder()
+                        .encryptedCardNumber("COUNT-CARD-" + i + "-" + j)
+                        .encryptedCvv("000")
+                        .cardHolderName("COUNT")
+                        .type(Card.CardType.DEBIT)
+                        .status(Card.CardStatus.ACTIVE)
+                        .expiryDate(LocalDate.now().plusYears(3))
+                        .account(account)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<UserDto> users = userService.getAllUsersWithCards();
+
+        List<UserDto> seeded = users.stream().filter(user -> user.getUsername().startsWith("count")).toList();
+        assertEquals(USERS, seeded.size());
+        assertTrue(seeded.stream().allMatch(user -> user.getAccounts().size() == ACCOUNTS_PER_USER
+                && user.getAccounts().stream().allMatch(account -> account.getCards().size() == 1)));
+        assertEquals(List.of("ROLE_USER"), seeded.get(0).getRoles());
+
+        // One users-with-accounts join, one roles batch per 100 users, one cards query per 1000 accounts
+        long expected = 1 + USERS / 100 + USERS * ACCOUNTS_PER_USER / 1000;
+        assertTrue(statistics.getPrepareStatementCount() <= expected,
+                "Expected at most " + expected + " queries but ran " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongLongMapTest {
+
+    @Test
+    void putGetRemove_MatchesHashMap() {
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 5000; key++) {
+            assertEquals(expected.getOrDefault(key, -1L), map.get(key, -1));
+        }
+    }
+
+    @Test
+    void clear_RemovesEverything() {
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap();
+        for (long key = 1; key <= 1000; key++) {
+            map.put(key, key * 10);
+        }
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(500, -1));
+    }
+
+    @Test
+    void put_ZeroKey_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLongLongMap().put(0, 1));
+    }
+
+    @Test
+    void get_DuringWrites_NeverReturnsAnotherKeysValue() throws Exception {
+        ConcurrentLongLongMap map = new ConcurrentLongLongMap();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // Values are always key * 10, so any mismatch means a torn read got through
+            Future<?> writer = executor.submit(() -> {
+                Random random = new Random(1);
+                for (int i = 0; i < 200_000; i++) {
+                    long key = 1 + random.nextInt(20_000);
+                    if (random.nextBoolean()) {
+                        map.put(key, key * 10);
+                    } else {
+                        map.remove(key);
+                    }
+                }
+                running.set(false);
+            });
+            Runnable reader = () -> {
+                Random random = new Random(2);
+                while (running.get()) {
+                    long key = 1 + random.nextInt(20_000);
+                    long value = map.get(key, -1);
+                    assertTrue(value == -1 || value == key * 10, "key " + key + " read " + value);
+                }
+            };
+            Future<?> first = executor.submit(reader);
+            Future<?> second = executor.submit(reader);
+
+            writer.get(30, TimeUnit.SECONDS);
+            first.get(30, TimeUnit.SECONDS);
+            second.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "testSecretKeyForTestingPurposesOnly12345";
+
+    private final JwtUtils jwtUtils = new JwtUtils(SECRET, 60_000, 100);
+
+    @Test
+    void parseAndVerify_ReturnsClaims() {
+        Claims claims = jwtUtils.parseAndVerify(token(jwtUtils));
+
+        assertEquals("testuser", claims.getSubject());
+        assertEquals(7L, claims.get("userId", Long.class));
+        assertEquals(List.of("ROLE_USER"), claims.get("roles", List.class));
+    }
+
+    @Test
+    void parseAndVerify_RepeatedToken_ServedFromCache() {
+        String token = token(jwtUtils);
+
+        assertSame(jwtUtils.parseAndVerify(token), jwtUtils.parseAndVerify(token));
+    }
+
+    @Test
+    void parseAndVerify_CacheFull_StartsOver() {
+        JwtUtils small = new JwtUtils(SECRET, 60_000, 2);
+        String first = token(small, 1L);
+        String second = token(small, 2L);
+        String third = token(small, 3L);
+        Claims firstClaims = small.parseAndVerify(first);
+        small.parseAndVerify(second);
+
+        Claims thirdClaims = small.parseAndVerify(third);
+
+        assertSame(thirdClaims, small.parseAndVerify(third));
+        assertNotSame(firstClaims, small.parseAndVerify(first));
+    }
+
+    @Test
+    void parseAndVerify_CacheFull_DropsExpiredTokensFirst() throws InterruptedException {
+        JwtUtils small = new JwtUtils(SECRET, 60_000, 2);
+        String expiring = token(new JwtUtils(SECRET, 2000, 2), 1L);
+        String live = token(small, 2L);
+        small.parseAndVerify(expiring);
+        Claims liveClaims = small.parseAndVerify(live);
+        Thread.sleep(2100);
+
+        small.parseAndVerify(token(small, 3L));
+
+        assertSame(liveClaims, small.parseAndVerify(live));
+    }
+
+    @Test
+    void parseAndVerify_CacheDisabled_VerifiesEveryTime() {
+        JwtUtils uncached = new JwtUtils(SECRET, 60_000, 0);
+        String token = token(uncached);
+
+        assertNotSame(uncached.parseAndVerify(token), uncached.parseAndVerify(token));
+    }
+
+    @Test
+    void parseAndVerify_TamperedToken_ReturnsNull() {
+        String token = token(jwtUtils);
+        int signature = token.lastIndexOf('.') + 1;
+        char replaced = token.charAt(signature) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signature) + replaced + token.substring(signature + 1);
+
+        assertNull(jwtUtils.parseAndVerify(tampered));
+    }
+
+    @Test
+    void parseAndVerify_OtherKey_ReturnsNull() {
+        JwtUtils other = new JwtUtils("anotherSecretKeyForTestingPurposesOnly123", 60_000, 100);
+
+        assertNull(jwtUtils.parseAndVerify(token(other)));
+    }
+
+    @Test
+    void parseAndVerify_ExpiredToken_ReturnsNull() {
+        JwtUtils expiring = new JwtUtils(SECRET, -1000, 100);
+
+        assertNull(expiring.parseAndVerify(token(expiring)));
+        assertFalse(expiring.validateJwtToken(token(expiring)));
+    }
+
+    @Test
+    void parseAndVerify_Empty_ReturnsNull() {
+        assertNull(jwtUtils.parseAndVerify(""));
+        assertNull(jwtUtils.parseAndVerify(null));
+    }
+
+    private static String token(JwtUtils jwtUtils) {
+        return token(jwtUtils, 7L);
+    }
+
+    private static String token(JwtUtils jwtUtils, Long userId) {
+        UserPrincipal user = new UserPrincipal(userId, "testuser", "test@example.com", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
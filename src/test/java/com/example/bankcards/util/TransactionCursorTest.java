@@ -0,0 +1,26 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCursorTest {
+
+    @Test
+    void encode_Decode_RoundTrips() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000), 42L);
+
+        String encoded = cursor.encode();
+
+        assertFalse(encoded.contains("="));
+        assertEquals(cursor, TransactionCursor.decode(encoded));
+    }
+
+    @Test
+    void decode_Garbage_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("bm9zZXBhcmF0b3I"));
+    }
+}
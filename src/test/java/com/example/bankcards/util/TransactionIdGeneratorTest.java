@@ -0,0 +1,120 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 500_000;
+
+    @Test
+    void nextId_ConcurrentThreads_AllUniqueAndIncreasingPerThread() throws Exception {
+        TransactionIdGenerator generator = new TransactionIdGenerator(7, 5000, System::currentTimeMillis);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                long[] ids = new long[IDS_PER_THREAD];
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get(60, TimeUnit.SECONDS);
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1], "ids must increase within a thread");
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        pool.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "duplicate id generated");
+        }
+    }
+
+    @Test
+    void nextId_DifferentNodesSameMillisecond_DoNotCollide() {
+        TransactionIdGenerator first = new TransactionIdGenerator(1, 5000, () -> 1_800_000_000_000L);
+        TransactionIdGenerator second = new TransactionIdGenerator(2, 5000, () -> 1_800_000_000_000L);
+
+        assertNotEquals(first.nextId(), second.nextId());
+        assertNotEquals(first.nextId(), second.nextId());
+    }
+
+    @Test
+    void nextId_SequenceExhausted_WaitsForNextMillisecond() {
+        AtomicLong reads = new AtomicLong();
+        // One millisecond passes after the first 4097 clock reads
+        TransactionIdGenerator generator = new TransactionIdGenerator(0, 5000,
+                () -> reads.incrementAndGet() > 4097 ? 1_800_000_000_001L : 1_800_000_000_000L);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 5000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous);
+            previous = next;
+        }
+        assertEquals(1_800_000_000_001L - TransactionIdGenerator.EPOCH,
+                previous >>> (TransactionIdGenerator.NODE_BITS + TransactionIdGenerator.SEQUENCE_BITS));
+    }
+
+    @Test
+    void nextId_ClockMovesBackwards_StaysMonotonic() {
+        AtomicLong clock = new AtomicLong(1_800_000_000_000L);
+        TransactionIdGenerator generator = new TransactionIdGenerator(0, 5000, clock::get);
+
+        long beforeJump = generator.nextId();
+        clock.addAndGet(-1000);
+        long afterJump = generator.nextId();
+
+        assertTrue(afterJump > beforeJump);
+    }
+
+    @Test
+    void nextId_ClockMovesBackwardsBeyondDrift_Throws() {
+        AtomicLong clock = new AtomicLong(1_800_000_000_000L);
+        TransactionIdGenerator generator = new TransactionIdGenerator(0, 5000, clock::get);
+
+        generator.nextId();
+        clock.addAndGet(-10_000);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void constructor_NodeIdOutOfRange_Throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionIdGenerator(TransactionIdGenerator.MAX_NODE_ID + 1, 5000, System::currentTimeMillis));
+    }
+
+    @Test
+    void nextTransactionId_HasPrefix() {
+        TransactionIdGenerator generator = new TransactionIdGenerator(0, 5000, System::currentTimeMillis);
+
+        assertTrue(generator.nextTransactionId().startsWith(TransactionIdGenerator.PREFIX));
+    }
+}
@@ -0,0 +1,65 @@
+-- Dataset for QueryPlanTest: enough rows that the planner prefers an index wherever one applies.
+-- Ids start at 1000001 to stay clear of the rows inserted by 002-test-data.yaml.
+
+INSERT INTO users (id, username, email, password, status, created_at, updated_at)
+SELECT 1000000 + g, 'plan_user_' || g, 'plan_user_' || g || '@example.com', 'x', 'ACTIVE',
+       LOCALTIMESTAMP - INTERVAL '30 days', LOCALTIMESTAMP - INTERVAL '30 days'
+FROM generate_series(1, 2000) g;
+
+INSERT INTO user_roles (user_id, role)
+SELECT 1000000 + g, 'ROLE_USER' FROM generate_series(1, 2000) g;
+
+INSERT INTO accounts (id, account_number, balance, currency, type, status, user_id, created_at, balance_shards)
+SELECT 1000000 + g, 'PLAN' || lpad(g::text, 16, '0'), 1000, 'RUB', 'CURRENT',
+       CASE WHEN g % 10 = 0 THEN 'BLOCKED' ELSE 'ACTIVE' END,
+       1000000 + (g - 1) / 5 + 1, LOCALTIMESTAMP, CASE WHEN g % 100 = 0 THEN 16 ELSE 0 END
+FROM generate_series(1, 10000) g;
+
+INSERT INTO account_balance_shards (account_id, shard_no, balance)
+SELECT a.id, s, 0 FROM accounts a CROSS JOIN generate_series(0, 15) s WHERE a.balance_shards > 0;
+
+INSERT INTO cards (id, encrypted_card_number, expiry_date, encrypted_cvv, card_holder_name, type, status, account_id, created_at)
+SELECT 1000000 + g, 'PLANCARD' || g, CURRENT_DATE + (g % 1500) - 30, '000', 'PLAN USER', 'DEBIT',
+       CASE WHEN g % 20 = 0 THEN 'BLOCKED' ELSE 'ACTIVE' END,
+       1000000 + (g - 1) / 2 + 1, LOCALTIMESTAMP
+FROM generate_series(1, 20000) g;
+
+INSERT INTO transactions (id, transaction_id, amount, currency, type, status, description,
+                          from_account_id, to_account_id, from_card_id, created_at)
+SELECT 1000000 + g, 'PLANTXN' || g, 10, 'RUB', 'TRANSFER',
+       CASE WHEN g % 500 = 0 THEN 'PENDING' ELSE 'COMPLETED' END, 'plan',
+       1000000 + g % 10000 + 1, 1000000 + (g * 7) % 10000 + 1,
+       CASE WHEN g % 3 = 0 THEN 1000000 + g % 20000 + 1 END,
+       LOCALTIMESTAMP - make_interval(mins => g)
+FROM generate_series(1, 200000) g;
+
+INSERT INTO ledger_entries (id, transaction_id, account_id, amount, created_at)
+SELECT 2 * t.id, t.id, t.from_account_id, -t.amount, t.created_at FROM transactions t WHERE t.id > 1000000
+UNION ALL
+SELECT 2 * t.id + 1, t.id, t.to_account_id, t.amount, t.created_at FROM transactions t WHERE t.id > 1000000;
+
+INSERT INTO ledger_checkpoints (account_id, balance, covered_until)
+SELECT id, 0, LOCALTIMESTAMP - INTERVAL '1 day' FROM accounts WHERE id > 1000000
+ON CONFLICT (account_id) DO NOTHING;
+
+INSERT INTO account_balance_snapshots (account_id, day, closing_balance)
+SELECT a.id, CURRENT_DATE - d, 1000 FROM accounts a CROSS JOIN generate_series(1, 30) d WHERE a.id > 1000000;
+
+INSERT INTO monthly_account_totals (account_id, month, currency, inflow, outflow, transaction_count)
+SELECT f.account_id, f.month, 'RUB', SUM(f.inflow), SUM(f.outflow), COUNT(*)
+FROM (SELECT t.to_account_id AS account_id, CAST(date_trunc('month', t.created_at) AS DATE) AS month,
+             t.amount AS inflow, 0 AS outflow
+      FROM transactions t WHERE t.id > 1000000 AND t.status = 'COMPLETED'
+      UNION ALL
+      SELECT t.from_account_id, CAST(date_trunc('month', t.created_at) AS DATE), 0, t.amount
+      FROM transactions t WHERE t.id > 1000000 AND t.status = 'COMPLETED') f
+GROUP BY f.account_id, f.month;
+
+INSERT INTO idempotency_keys (id, idempotency_key, user_id, operation, created_at)
+SELECT 1000000 + g, 'plan-key-' || g, 1000000 + g % 2000 + 1, 'TRANSFER', LOCALTIMESTAMP - make_interval(mins => g)
+FROM generate_series(1, 20000) g;
+
+INSERT INTO user_deletions (user_id, deleted_at)
+SELECT 2000000 + g, LOCALTIMESTAMP - make_interval(secs => g * 4.5) FROM generate_series(1, 20000) g;
+
+ANALYZE;